@@ -2,15 +2,28 @@ package jobshop;
 
 import jobshop.encodings.Task;
 
+import java.io.BufferedReader;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Iterator;
 import java.util.Scanner;
 import java.util.stream.Collectors;
 
 public class Instance {
 
+    /** First bytes of a binary instance file ("JSPB"), see writeBinary() */
+    static final int BINARY_MAGIC = 0x4A535042;
+    /** Size of the header of a binary instance file : magic, number of jobs, number of tasks */
+    static final int BINARY_HEADER = 12;
+
     /** Number of jobs in the instance */
     public final int numJobs;
 
@@ -20,17 +33,22 @@ public class Instance {
     /** Number of machines, assumed to be same as number of tasks. */
     public final int numMachines;
 
-    final int[][] durations;
-    final int[][] machines;
+    /** Machine and duration of each operation, interleaved and in row-major order : the operation `job * numTasks + task`
+     * uses machine operations[2*op] for operations[2*op+1] time units. Null for instances mapped from a binary file. */
+    final int[] operations;
+    /** Same content as operations for instances mapped from a binary file, kept off-heap. Null otherwise. */
+    final IntBuffer mappedOperations;
 
     public int duration(int job, int task) {
-        return durations[job][task];
+        int i = 2 * (job * numTasks + task) + 1;
+        return operations != null ? operations[i] : mappedOperations.get(i);
     }
     public int duration(Task t) {
         return duration(t.job, t.task);
     }
     public int machine(int job, int task) {
-        return machines[job][task];
+        int i = 2 * (job * numTasks + task);
+        return operations != null ? operations[i] : mappedOperations.get(i);
     }
     public int machine(Task t) {
         return this.machine(t.job, t.task);
@@ -46,20 +64,55 @@ public class Instance {
     }
 
     Instance(int numJobs, int numTasks) {
+        this(numJobs, numTasks, new int[2 * numJobs * numTasks], null);
+    }
+
+    private Instance(int numJobs, int numTasks, int[] operations, IntBuffer mappedOperations) {
         this.numJobs = numJobs;
         this.numTasks = numTasks;
         this.numMachines = numTasks;
+        this.operations = operations;
+        this.mappedOperations = mappedOperations;
+    }
+
+    /** True if the instance is stored outside of the Java heap (instances read from binary files). */
+    public boolean isOffHeap() {
+        return operations == null;
+    }
+
+    /** Creates an instance from the machine and the duration of each task : machines[job][task] and durations[job][task]. */
+    public Instance(int[][] machines, int[][] durations) {
+        this(machines.length, machines.length == 0 ? 0 : machines[0].length);
+        for(int job = 0 ; job < numJobs ; job++) {
+            if(machines[job].length != numTasks || durations[job].length != numTasks)
+                throw new IllegalArgumentException("Job " + job + " does not have " + numTasks + " tasks");
+            for(int task = 0 ; task < numTasks ; task++) {
+                set(job, task, machines[job][task], durations[job][task]);
+            }
+        }
+    }
 
-        durations = new int[numJobs][numTasks];
-        machines = new int[numJobs][numTasks];
+    private void set(int job, int task, int machine, int duration) {
+        int op = job * numTasks + task;
+        operations[2 * op] = machine;
+        operations[2 * op + 1] = duration;
     }
 
-    /** Parses a instance from a file. */
+    /** Parses a instance from a file, either a text file or a binary file written by writeBinary(). */
     public static Instance fromFile(Path path) throws IOException {
-        Iterator<String> lines = Files.readAllLines(path).stream()
-                .filter(l -> !l.startsWith("#"))
-                .collect(Collectors.toList())
-                .iterator();
+        Iterator<String> lines;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // the format is recognized from the first bytes, read without moving the position of the channel
+            ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            if(channel.read(magic, 0) == 4 && magic.getInt(0) == BINARY_MAGIC)
+                return map(channel, path);
+
+            BufferedReader reader = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8.name()));
+            lines = reader.lines()
+                    .filter(l -> !l.startsWith("#"))
+                    .collect(Collectors.toList())
+                    .iterator();
+        }
 
         Scanner header = new Scanner(lines.next());
         int num_jobs = header.nextInt();
@@ -69,11 +122,51 @@ public class Instance {
         for(int job = 0 ; job<num_jobs ; job++) {
             Scanner line = new Scanner(lines.next());
             for(int task = 0 ; task < num_tasks ; task++) {
-                pb.machines[job][task] = line.nextInt();
-                pb.durations[job][task] = line.nextInt();
+                int machine = line.nextInt();
+                pb.set(job, task, machine, line.nextInt());
             }
         }
 
         return pb;
     }
+
+    /** Maps a binary instance file in memory : the instance is not copied on the heap and its pages are only loaded
+     * when they are read. The file must not be modified while the instance is used. */
+    public static Instance fromBinaryFile(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return map(channel, path);
+        }
+    }
+
+    /** Maps a binary instance from an open file, the mapping stays valid once the channel is closed. */
+    private static Instance map(FileChannel channel, Path path) throws IOException {
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        mapped.order(ByteOrder.LITTLE_ENDIAN);
+        if(mapped.limit() < BINARY_HEADER || mapped.getInt(0) != BINARY_MAGIC)
+            throw new IOException("Not a binary instance file: " + path);
+        int numJobs = mapped.getInt(4);
+        int numTasks = mapped.getInt(8);
+        if(numJobs < 0 || numTasks < 0 || mapped.limit() != BINARY_HEADER + 8L * numJobs * numTasks)
+            throw new IOException("Truncated binary instance file: " + path);
+        mapped.position(BINARY_HEADER);
+        return new Instance(numJobs, numTasks, null, mapped.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer());
+    }
+
+    /** Writes the instance in the binary format read by fromBinaryFile() : little-endian ints, the magic number,
+     * the number of jobs and tasks, then the machine and duration of each operation in row-major order. */
+    public void writeBinary(Path path) throws IOException {
+        long size = BINARY_HEADER + 8L * numJobs * numTasks;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            mapped.putInt(BINARY_MAGIC).putInt(numJobs).putInt(numTasks);
+            IntBuffer out = mapped.asIntBuffer();
+            if(operations != null)
+                out.put(operations);
+            else
+                out.put(mappedOperations.duplicate());
+            mapped.force();
+        }
+    }
 }
@@ -0,0 +1,97 @@
+package jobshop;
+
+import net.sourceforge.argparse4j.ArgumentParsers;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.ArgumentParserException;
+import net.sourceforge.argparse4j.inf.Namespace;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+/** Generates random instances in the binary format of Instance.writeBinary(), as in the Taillard benchmarks :
+ * each job visits the machines in a random order, durations are uniform in [1, 99].
+ *
+ * The file is written through a memory mapping, so instances with millions of operations are generated
+ * without holding them on the heap.
+ */
+public class InstanceGenerator {
+
+    private static final int MAX_DURATION = 99;
+
+    public static void generate(Path path, int numJobs, int numMachines, long seed) throws IOException {
+        if(numJobs <= 0 || numMachines <= 0)
+            throw new IllegalArgumentException("Empty instance: " + numJobs + "x" + numMachines);
+        long size = Instance.BINARY_HEADER + 8L * numJobs * numMachines;
+        if(size > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Instance too large for a single mapping: " + numJobs + "x" + numMachines);
+
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] machines = new int[numMachines];
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            mapped.putInt(Instance.BINARY_MAGIC).putInt(numJobs).putInt(numMachines);
+            IntBuffer out = mapped.asIntBuffer();
+            for(int job = 0 ; job < numJobs ; job++) {
+                // Fisher-Yates shuffle of the machines
+                for(int m = 0 ; m < numMachines ; m++)
+                    machines[m] = m;
+                for(int i = numMachines - 1 ; i > 0 ; i--) {
+                    int j = random.nextInt(i + 1);
+                    int tmp = machines[i];
+                    machines[i] = machines[j];
+                    machines[j] = tmp;
+                }
+                for(int task = 0 ; task < numMachines ; task++) {
+                    out.put(machines[task]);
+                    out.put(1 + random.nextInt(MAX_DURATION));
+                }
+            }
+            mapped.force();
+        }
+    }
+
+    public static void main(String[] args) {
+        ArgumentParser parser = ArgumentParsers.newFor("jsp-generate").build()
+                .defaultHelp(true)
+                .description("Generates a random jobshop instance in binary format.");
+        parser.addArgument("--jobs")
+                .required(true)
+                .type(Integer.class)
+                .help("Number of jobs");
+        parser.addArgument("--machines")
+                .required(true)
+                .type(Integer.class)
+                .help("Number of machines (and of tasks per job)");
+        parser.addArgument("--seed")
+                .setDefault(0L)
+                .type(Long.class)
+                .help("Seed of the random generator");
+        parser.addArgument("--output")
+                .required(true)
+                .help("File to write");
+
+        Namespace ns = null;
+        try {
+            ns = parser.parseArgs(args);
+        } catch (ArgumentParserException e) {
+            parser.handleError(e);
+            System.exit(1);
+        }
+
+        try {
+            generate(Paths.get(ns.getString("output")), ns.getInt("jobs"), ns.getInt("machines"), ns.getLong("seed"));
+        } catch (IOException | IllegalArgumentException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
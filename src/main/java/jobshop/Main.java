@@ -1,17 +1,21 @@
 package jobshop;
 
 import java.io.PrintStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 
 
 import jobshop.encodings.PriorityRules;
+import jobshop.island.IslandSolver;
 import jobshop.solvers.*;
 import net.sourceforge.argparse4j.ArgumentParsers;
+import net.sourceforge.argparse4j.impl.Arguments;
 import net.sourceforge.argparse4j.inf.ArgumentParser;
 import net.sourceforge.argparse4j.inf.ArgumentParserException;
 import net.sourceforge.argparse4j.inf.Namespace;
@@ -19,12 +23,14 @@ import net.sourceforge.argparse4j.inf.Namespace;
 //java -jar build/libs/JSP.jar --solver greedyESTLRPT descent taboo_2000_10 --instance aaa1 ft06 ft10 ft20 la01 la02 la03 la04 la05 la06 la07 la08 la09
 public class Main {
 
-    /** All solvers available in this program */
-    private static HashMap<String, Solver> solvers;
+    /** All solvers available in this program (also served by SolveServer) */
+    static HashMap<String, Solver> solvers;
     static {
         solvers = new HashMap<>();
         solvers.put("basic", new BasicSolver());
+        solvers.put("auto", new AutoSolver());
         solvers.put("random", new RandomSolver());
+        solvers.put("randomParallel", new RandomSolver(0, Runtime.getRuntime().availableProcessors()));
         // add new solvers here
 
         solvers.put("greedySPT", new GreedySolver(PriorityRules.SPT));
@@ -35,11 +41,28 @@ public class Main {
         solvers.put("greedyESTLPT", new GreedySolver(PriorityRules.EST_LPT));
         solvers.put("greedyESTSRPT", new GreedySolver(PriorityRules.EST_SRPT));
         solvers.put("greedyESTLRPT", new GreedySolver(PriorityRules.EST_LRPT));
+        solvers.put("beam", new BeamSearchSolver());
+        solvers.put("shiftingBottleneck", new ShiftingBottleneckSolver());
+        solvers.put("branchAndBound", new BranchAndBoundSolver());
 
         solvers.put("descent", new DescentSolver());
+        solvers.put("descentN6", new DescentSolver().withNeighborhood(Neighborhood.N6));
+
+        solvers.put("annealing", new SimulatedAnnealingSolver());
+        solvers.put("islands", new IslandSolver(Math.max(2, Runtime.getRuntime().availableProcessors())));
+        solvers.put("genetic", new GeneticSolver());
+        solvers.put("tabooParallel", new CooperativeTabooSolver(Runtime.getRuntime().availableProcessors()));
+        solvers.put("lns", new LargeNeighborhoodSolver());
+        solvers.put("grasp", new GraspSolver());
+
+        // solvers starting from (and updating) the best solutions stored in solutions/
+        SolutionStore store = new SolutionStore(Paths.get("solutions"));
+        solvers.put("descentStore", new DescentSolver(store));
+        solvers.put("tabooStore", new TabooSolver(Integer.MAX_VALUE, 1, store));
 
         solvers.put("taboomax_1",new TabooSolver(Integer.MAX_VALUE, 1));
         solvers.put("taboomax_max",new TabooSolver(Integer.MAX_VALUE, Integer.MAX_VALUE));
+        solvers.put("tabooN6max_10",new TabooSolver(Integer.MAX_VALUE, 10).withNeighborhood(Neighborhood.N6));
 
         for (int i = 0;i<=2000;i++){
             for (int j=0;j<=i; j++){
@@ -58,6 +81,11 @@ public class Main {
                 .setDefault(1L)
                 .type(Long.class)
                 .help("Solver timeout in seconds for each instance");
+        parser.addArgument("--total-timeout")
+                .type(Long.class)
+                .help("Time in seconds for the whole batch, replacing --timeout : instances are solved from the smallest "
+                        + "to the largest and each run gets a share of the time left proportional to its number of tasks, "
+                        + "at least 0.1 s");
         parser.addArgument("--solver")
                 .nargs("+")
                 .required(true)
@@ -68,6 +96,17 @@ public class Main {
                 .required(true)
                 .help("Instance(s) to solve (space separated if more than one)");
 
+        parser.addArgument("--checkpoint")
+                .help("Directory in which taboo solvers periodically save their state, one file per solver and instance");
+        parser.addArgument("--checkpoint-period")
+                .setDefault(10L)
+                .type(Long.class)
+                .help("Time between two checkpoints in seconds");
+        parser.addArgument("--resume")
+                .action(Arguments.storeTrue())
+                .setDefault(false)
+                .help("Continue the taboo searches saved in the checkpoint directory instead of starting new ones");
+
         Namespace ns = null;
         try {
             ns = parser.parseArgs(args);
@@ -79,6 +118,14 @@ public class Main {
         PrintStream output = System.out;
 
         long solveTimeMs = ns.getLong("timeout") * 1000;
+        Long totalTimeout = ns.getLong("total_timeout");
+        Path checkpoints = ns.getString("checkpoint") == null ? null : Paths.get(ns.getString("checkpoint"));
+        long checkpointPeriodMs = ns.getLong("checkpoint_period") * 1000;
+        boolean resume = ns.getBoolean("resume");
+        if(resume && checkpoints == null) {
+            System.err.println("ERROR: --resume requires a --checkpoint directory.");
+            System.exit(1);
+        }
 
         List<String> solversToTest = ns.getList("solver");
         for(String solverName : solversToTest) {
@@ -105,6 +152,19 @@ public class Main {
         float[] distances = new float[solversToTest.size()];
 
         try {
+            HashMap<String, Instance> loaded = new HashMap<>();
+            TimeBudget budget = null;
+            if(totalTimeout != null) {
+                long totalWeight = 0;
+                for(String instanceName : instances) {
+                    Instance instance = Instance.fromFile(Paths.get("instances/", instanceName));
+                    loaded.put(instanceName, instance);
+                    totalWeight += (long) instance.numJobs * instance.numTasks * solversToTest.size();
+                }
+                instances.sort(Comparator.comparingLong(name -> (long) loaded.get(name).numJobs * loaded.get(name).numTasks));
+                budget = new TimeBudget(totalTimeout * 1000, totalWeight);
+            }
+
             output.print(  "                         ");
             for(String s : solversToTest)
                 output.printf("%-30s", s);
@@ -120,16 +180,24 @@ public class Main {
                 int bestKnown = BestKnownResult.of(instanceName);
 
 
-                Path path = Paths.get("instances/", instanceName);
-                Instance instance = Instance.fromFile(path);
+                Instance instance = loaded.containsKey(instanceName)
+                        ? loaded.get(instanceName)
+                        : Instance.fromFile(Paths.get("instances/", instanceName));
 
                 output.printf("%-8s %-5s %4d      ",instanceName, instance.numJobs +"x"+instance.numTasks, bestKnown);
 
                 for(int solverId = 0 ; solverId < solversToTest.size() ; solverId++) {
                     String solverName = solversToTest.get(solverId);
                     Solver solver = solvers.get(solverName);
+                    if(checkpoints != null && solver instanceof TabooSolver) {
+                        Files.createDirectories(checkpoints);
+                        Path file = checkpoints.resolve(solverName + "_" + instanceName + ".ckpt");
+                        solver = ((TabooSolver) solver).withCheckpoint(file, checkpointPeriodMs, resume);
+                    }
                     long start = System.currentTimeMillis();
-                    long deadline = System.currentTimeMillis() + solveTimeMs;
+                    long deadline = budget != null
+                            ? budget.nextDeadline((long) instance.numJobs * instance.numTasks)
+                            : System.currentTimeMillis() + solveTimeMs;
                     Result result = solver.solve(instance, deadline);
                     long runtime = System.currentTimeMillis() - start;
 
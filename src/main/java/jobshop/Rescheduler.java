@@ -0,0 +1,260 @@
+package jobshop;
+
+import java.util.Arrays;
+
+/** Keeps a schedule up to date while it is being executed, when jobs arrive and machines break down.
+ *
+ * The rescheduler holds the current schedule and the current time. Operations planned to start before the current
+ * time are considered started : they are frozen and keep their start time (an operation already started is not
+ * interrupted by a breakdown of its machine). After jobs were added or unavailability windows declared,
+ * reschedule() repairs the current plan instead of solving the new instance from scratch :
+ *  - the other operations keep their order on each machine, the operations of new jobs are inserted where they
+ *    would start if the machines were free,
+ *  - operations are then scheduled as soon as possible, but not before the current time nor during a window in which
+ *    their machine is unavailable,
+ *  - a local search then swaps consecutive operations of a machine while it improves the makespan,
+ *    for a bounded number of moves.
+ */
+public class Rescheduler {
+
+    private Instance instance;
+    /** start[job][task] : planned start time, -1 for operations of jobs added since the last reschedule */
+    private int[][] start;
+    private int now = 0;
+    /** windows[m] holds the unavailability windows of machine m as (from, to) pairs sorted by start */
+    private final int[][] windows;
+
+    // set by reschedule() for the decoder
+    private boolean[][] frozen;
+    private int[][] taskOnMachine;
+    private int[] jobNext, jobEnd, machinePos, machineEnd;
+
+    /** Starts from a complete schedule, at time 0. */
+    public Rescheduler(Schedule initial) {
+        this.instance = initial.pb;
+        this.start = new int[instance.numJobs][];
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            this.start[j] = new int[instance.numTasks];
+            for(int t = 0 ; t < instance.numTasks ; t++)
+                this.start[j][t] = initial.startTime(j, t);
+        }
+        this.windows = new int[instance.numMachines][0];
+    }
+
+    public Instance instance() {
+        return instance;
+    }
+
+    /** Current time. */
+    public int now() {
+        return now;
+    }
+
+    /** Current plan : the last schedule returned by reschedule(), or the initial one.
+     * Throws IllegalStateException if jobs were added and not scheduled yet. */
+    public Schedule schedule() {
+        for(int[] job : start)
+            if(job[0] < 0)
+                throw new IllegalStateException("New jobs are not scheduled, call reschedule() first");
+        return new Schedule(instance, start);
+    }
+
+    /** Moves the current time forward : operations planned to start before `time` cannot be moved anymore. */
+    public void advanceTo(int time) {
+        if(time < now)
+            throw new IllegalArgumentException("Time cannot go backward: " + time + " < " + now);
+        now = time;
+    }
+
+    /** Adds a job released at the current time, returns its index in the new instance.
+     * As in the instance files, the job must use each machine exactly once. */
+    public int addJob(int[] machines, int[] durations) {
+        if(machines.length != instance.numMachines || durations.length != instance.numTasks)
+            throw new IllegalArgumentException("A job must have " + instance.numTasks + " tasks");
+        boolean[] used = new boolean[instance.numMachines];
+        for(int t = 0 ; t < machines.length ; t++) {
+            if(machines[t] < 0 || machines[t] >= instance.numMachines || used[machines[t]])
+                throw new IllegalArgumentException("A job must use each machine exactly once: " + Arrays.toString(machines));
+            if(durations[t] < 0)
+                throw new IllegalArgumentException("Negative duration: " + durations[t]);
+            used[machines[t]] = true;
+        }
+
+        int numJobs = instance.numJobs + 1;
+        int[][] allMachines = new int[numJobs][];
+        int[][] allDurations = new int[numJobs][];
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            allMachines[j] = new int[instance.numTasks];
+            allDurations[j] = new int[instance.numTasks];
+            for(int t = 0 ; t < instance.numTasks ; t++) {
+                allMachines[j][t] = instance.machine(j, t);
+                allDurations[j][t] = instance.duration(j, t);
+            }
+        }
+        allMachines[numJobs - 1] = machines;
+        allDurations[numJobs - 1] = durations;
+        instance = new Instance(allMachines, allDurations);
+
+        start = Arrays.copyOf(start, numJobs);
+        start[numJobs - 1] = new int[instance.numTasks];
+        Arrays.fill(start[numJobs - 1], -1);
+        return numJobs - 1;
+    }
+
+    /** Declares that `machine` cannot process any operation in [from, to). */
+    public void addUnavailability(int machine, int from, int to) {
+        if(from >= to)
+            throw new IllegalArgumentException("Empty unavailability window [" + from + ", " + to + ")");
+        int[] w = Arrays.copyOf(windows[machine], windows[machine].length + 2);
+        int i = w.length - 2;
+        // insertion sort of the new pair, windows are kept sorted by start
+        while(i > 0 && w[i - 2] > from) {
+            w[i] = w[i - 2];
+            w[i + 1] = w[i - 1];
+            i -= 2;
+        }
+        w[i] = from;
+        w[i + 1] = to;
+        windows[machine] = w;
+    }
+
+    /** Repairs the current plan after the changes of the instance and machine availabilities,
+     * with at most `maxMoves` improving swaps and until the deadline. The result becomes the current plan. */
+    public Schedule reschedule(int maxMoves, long deadline) {
+        int numJobs = instance.numJobs;
+        frozen = new boolean[numJobs][instance.numTasks];
+        taskOnMachine = new int[numJobs][instance.numMachines];
+        for(int j = 0 ; j < numJobs ; j++) {
+            for(int t = 0 ; t < instance.numTasks ; t++) {
+                frozen[j][t] = start[j][t] >= 0 && start[j][t] < now;
+                taskOnMachine[j][instance.machine(j, t)] = t;
+            }
+        }
+        jobNext = new int[numJobs];
+        jobEnd = new int[numJobs];
+        machinePos = new int[instance.numMachines];
+        machineEnd = new int[instance.numMachines];
+
+        int[][] sequence = initialSequence();
+        int[][] times = new int[numJobs][instance.numTasks];
+        int[][] candidate = new int[numJobs][instance.numTasks];
+        int makespan = decode(sequence, Integer.MAX_VALUE, times);
+        if(makespan == Integer.MAX_VALUE)
+            throw new IllegalStateException("Current plan is not consistent with the frozen operations");
+
+        for(int moves = 0 ; moves < maxMoves && deadline - System.currentTimeMillis() > 0 ; moves++) {
+            int improved = improve(sequence, times, makespan, candidate, deadline);
+            if(improved >= makespan)
+                break;
+            makespan = improved;
+            int[][] tmp = times;
+            times = candidate;
+            candidate = tmp;
+        }
+
+        start = times;
+        return new Schedule(instance, start);
+    }
+
+    /** Jobs on each machine : planned operations in the order of their start time, operations of new jobs
+     * inserted at the time they would start on free machines (from the current time). */
+    private int[][] initialSequence() {
+        long[][] keys = new long[instance.numMachines][instance.numJobs];
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            int release = now;
+            for(int t = 0 ; t < instance.numTasks ; t++) {
+                int time = start[j][t];
+                if(time < 0) {
+                    time = release;
+                    release += instance.duration(j, t);
+                }
+                // start time in high bits, job in low bits
+                keys[instance.machine(j, t)][j] = ((long) time << 32) | j;
+            }
+        }
+        int[][] sequence = new int[instance.numMachines][instance.numJobs];
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            Arrays.sort(keys[m]);
+            for(int i = 0 ; i < instance.numJobs ; i++)
+                sequence[m][i] = (int) keys[m][i];
+        }
+        return sequence;
+    }
+
+    /** Tries swapping each pair of consecutive unfrozen operations of a machine such that the second one starts when
+     * the first one ends. Keeps the first swap that improves the makespan, writes its start times in `out` and
+     * returns its makespan. Returns a value >= makespan if no swap improves it. */
+    private int improve(int[][] sequence, int[][] times, int makespan, int[][] out, long deadline) {
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            int[] jobs = sequence[m];
+            for(int i = 0 ; i + 1 < jobs.length ; i++) {
+                int a = jobs[i], ta = taskOnMachine[a][m];
+                int b = jobs[i + 1], tb = taskOnMachine[b][m];
+                if(frozen[a][ta] || frozen[b][tb] || times[b][tb] != times[a][ta] + instance.duration(a, ta))
+                    continue;
+                jobs[i] = b;
+                jobs[i + 1] = a;
+                int candidate = decode(sequence, makespan - 1, out);
+                if(candidate < makespan)
+                    return candidate;
+                jobs[i] = a;
+                jobs[i + 1] = b;
+                if(deadline - System.currentTimeMillis() <= 0)
+                    return makespan;
+            }
+        }
+        return makespan;
+    }
+
+    /** Schedules the operations in the order of `sequence` and writes their start times in `out`.
+     * Returns the makespan, or a value greater than `cutoff` as soon as it is known to exceed it,
+     * or Integer.MAX_VALUE if the order is cyclic. */
+    private int decode(int[][] sequence, int cutoff, int[][] out) {
+        Arrays.fill(jobNext, 0);
+        Arrays.fill(jobEnd, 0);
+        Arrays.fill(machinePos, 0);
+        Arrays.fill(machineEnd, 0);
+        int remaining = instance.numJobs * instance.numTasks;
+        int makespan = 0;
+        while(remaining > 0) {
+            boolean progress = false;
+            for(int m = 0 ; m < instance.numMachines ; m++) {
+                while(machinePos[m] < instance.numJobs) {
+                    int j = sequence[m][machinePos[m]];
+                    int t = taskOnMachine[j][m];
+                    if(jobNext[j] != t)
+                        break;
+                    int duration = instance.duration(j, t);
+                    int s = frozen[j][t] ? start[j][t] : firstFit(m, Math.max(now, Math.max(jobEnd[j], machineEnd[m])), duration);
+                    int end = s + duration;
+                    makespan = Math.max(makespan, end);
+                    if(makespan > cutoff)
+                        return makespan;
+                    out[j][t] = s;
+                    jobEnd[j] = end;
+                    machineEnd[m] = end;
+                    jobNext[j]++;
+                    machinePos[m]++;
+                    remaining--;
+                    progress = true;
+                }
+            }
+            if(!progress)
+                return Integer.MAX_VALUE;
+        }
+        return makespan;
+    }
+
+    /** Earliest time at or after `earliest` at which machine m is available for `duration` time units. */
+    private int firstFit(int m, int earliest, int duration) {
+        int[] w = windows[m];
+        int s = earliest;
+        for(int i = 0 ; i < w.length ; i += 2) {
+            if(s + duration <= w[i])
+                break;
+            if(s < w[i + 1])
+                s = w[i + 1];
+        }
+        return s;
+    }
+}
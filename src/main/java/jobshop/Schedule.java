@@ -3,21 +3,62 @@ package jobshop;
 
 import jobshop.encodings.Task;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
 import java.util.*;
 import java.util.stream.IntStream;
 
 public class Schedule {
     public final Instance pb;
-    // start times of each job and task
-    // times[j][i] is the start time of task (j,i) : i^th task of the j^th job
-    final int[][] times;
+    // start times of each job and task, in row-major order
+    // times[j * pb.numTasks + i] is the start time of task (j,i) : i^th task of the j^th job
+    // null for schedules stored off-heap, whose start times are in offHeapTimes in the same order
+    final int[] times;
+    final IntBuffer offHeapTimes;
 
     public Schedule(Instance pb, int[][] times) {
         this.pb = pb;
-        this.times = new int[pb.numJobs][];
+        int[] copy = new int[pb.numJobs * pb.numTasks];
         for(int j = 0 ; j < pb.numJobs ; j++) {
-            this.times[j] = Arrays.copyOf(times[j], pb.numTasks);
+            System.arraycopy(times[j], 0, copy, j * pb.numTasks, pb.numTasks);
         }
+        this.times = copy;
+        this.offHeapTimes = null;
+    }
+
+    private Schedule(Instance pb, int[] times, IntBuffer offHeapTimes) {
+        int size = times != null ? times.length : offHeapTimes.limit();
+        if(size != pb.numJobs * pb.numTasks)
+            throw new IllegalArgumentException("Expected " + pb.numJobs * pb.numTasks + " start times, got " + size);
+        this.pb = pb;
+        this.times = times;
+        this.offHeapTimes = offHeapTimes;
+    }
+
+    /** Schedule using `startTimes` as its storage, without copying it : startTimes[job * numTasks + task] is the start
+     * time of (job, task). The caller hands the array over and must not modify it afterwards. */
+    public static Schedule wrap(Instance pb, int[] startTimes) {
+        return new Schedule(pb, startTimes, null);
+    }
+
+    /** Same as wrap(Instance, int[]) for start times stored in a buffer, indexed from 0 whatever its position.
+     * A buffer backed by an array is wrapped as that array. */
+    public static Schedule wrap(Instance pb, IntBuffer startTimes) {
+        if(startTimes.hasArray() && startTimes.arrayOffset() == 0 && startTimes.array().length == startTimes.limit())
+            return new Schedule(pb, startTimes.array(), null);
+        return new Schedule(pb, null, startTimes);
+    }
+
+    /** Off-heap storage for the start times of a schedule of an off-heap instance, to be filled by a decoder and
+     * wrapped. Decoders of instances on the heap fill an array instead. */
+    public static IntBuffer allocateOffHeapStartTimes(Instance pb) {
+        return ByteBuffer.allocateDirect(4 * pb.numJobs * pb.numTasks).order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
+    /** True if the start times are stored outside of the Java heap. */
+    public boolean isOffHeap() {
+        return times == null;
     }
 
     public String toString(){
@@ -25,14 +66,35 @@ public class Schedule {
         for (int i = 0; i < pb.numJobs; i++){
             resultat.append("Job number ").append(i).append(" :\n");
             for (int j=0;j<pb.numTasks;j++) {
-                resultat.append("Task number ").append(j).append(" starts at time ").append(times[i][j]).append("\n");
+                resultat.append("Task number ").append(j).append(" starts at time ").append(startTime(i, j)).append("\n");
             }
         }
         return resultat.toString();
     }
 
     public int startTime(int job, int task) {
-        return times[job][task];
+        int op = job * pb.numTasks + task;
+        return times != null ? times[op] : offHeapTimes.get(op);
+    }
+
+    /** Returns all operations, identified by `job * numTasks + task`, sorted by increasing start time.
+     * Ties are broken by job then by task, so tasks of a job always appear in their order. */
+    public int[] operationsByStartTime() {
+        // sort (start time, operation) pairs packed in a long : start time in high bits, operation in low bits
+        long[] keys = new long[pb.numJobs * pb.numTasks];
+        for(int j = 0 ; j < pb.numJobs ; j++) {
+            for(int t = 0 ; t < pb.numTasks ; t++) {
+                int op = j * pb.numTasks + t;
+                keys[op] = ((long) startTime(j, t) << 32) | op;
+            }
+        }
+        Arrays.sort(keys);
+
+        int[] operations = new int[keys.length];
+        for(int i = 0 ; i < keys.length ; i++) {
+            operations[i] = (int) keys[i];
+        }
+        return operations;
     }
 
     /** Returns true if this schedule is valid (no constraint is violated) */
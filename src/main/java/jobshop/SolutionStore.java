@@ -0,0 +1,182 @@
+package jobshop;
+
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.Task;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.Scanner;
+import java.util.stream.Collectors;
+
+/** Persistent store of the best known solution of each instance.
+ *
+ * Solutions are kept in a directory, one file per instance named after a hash of the instance contents
+ * (so renaming or copying an instance file does not lose its solution). A solution file looks like an instance file :
+ *
+ * # makespan 12
+ * 2 3 # num-jobs num-machines
+ * 0 1 # order of the jobs on machine 0
+ * 1 0
+ * 0 1
+ *
+ * Files are replaced atomically, under a file lock, and only when the new solution is better than the stored one.
+ * The lock of a solution is a `.sol.lock` file next to it, left in the directory : removing it while another
+ * process waits for it would let a third one lock a new file and replace the solution at the same time.
+ */
+public class SolutionStore {
+
+    public final Path directory;
+
+    public SolutionStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /** Hex SHA-256 of the size, machines and durations of the instance. */
+    public static String key(Instance instance) {
+        ByteBuffer buffer = ByteBuffer.allocate(8 + 8 * instance.numJobs * instance.numTasks);
+        buffer.putInt(instance.numJobs).putInt(instance.numTasks);
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            for(int t = 0 ; t < instance.numTasks ; t++) {
+                buffer.putInt(instance.machine(j, t)).putInt(instance.duration(j, t));
+            }
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(buffer.array());
+            StringBuilder hex = new StringBuilder();
+            for(byte b : digest)
+                hex.append(String.format("%02x", b));
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is always available", e);
+        }
+    }
+
+    private Path file(Instance instance) {
+        return directory.resolve(key(instance) + ".sol");
+    }
+
+    /** Best stored solution of the instance, or null if there is none (or if the stored file is not a valid solution). */
+    public ResourceOrder load(Instance instance) {
+        Path file = file(instance);
+        if(!Files.isRegularFile(file))
+            return null;
+        try {
+            return read(file, instance);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /** Returns the better of `order` and the stored solution of its instance. */
+    public ResourceOrder warmStart(ResourceOrder order) {
+        ResourceOrder stored = load(order.instance);
+        return stored != null && stored.makespan() < order.makespan() ? stored : order;
+    }
+
+    /** Stores the solution if it is better than the stored one, returns true if it was stored.
+     * I/O errors are reported as UncheckedIOException. */
+    public boolean offer(ResourceOrder order) {
+        int makespan = order.makespan();
+        if(makespan == Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Cannot store an infeasible resource order");
+        Path file = file(order.instance);
+        try {
+            Files.createDirectories(directory);
+            synchronized (SolutionStore.class) {
+                return replaceIfBetter(file, order, makespan);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store solution in " + file, e);
+        }
+    }
+
+    /** Stores the solution as offer() does, an I/O error being reported on the standard error output instead of
+     * thrown : for solvers, which should not lose the solution they just found because it could not be stored. */
+    public boolean offerOrWarn(ResourceOrder order) {
+        try {
+            return offer(order);
+        } catch (UncheckedIOException e) {
+            System.err.println("WARNING: " + e.getMessage() + ": " + e.getCause());
+            return false;
+        }
+    }
+
+    /** Replaces the solution file under a file lock, which serializes updates by several processes.
+     * File locks are held by the whole JVM : threads of this process are serialized by the caller.
+     * The lock file is never deleted, see the class comment. */
+    private boolean replaceIfBetter(Path file, ResourceOrder order, int makespan) throws IOException {
+        Path lockFile = directory.resolve(file.getFileName() + ".lock");
+        try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            FileLock lock = channel.lock();
+            try {
+                ResourceOrder stored = load(order.instance);
+                if(stored != null && stored.makespan() <= makespan)
+                    return false;
+
+                Path tmp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+                try {
+                    try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                        write(out, order, makespan);
+                    }
+                    Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } finally {
+                    Files.deleteIfExists(tmp);
+                }
+                return true;
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    static void write(BufferedWriter out, ResourceOrder order, int makespan) throws IOException {
+        Instance instance = order.instance;
+        out.write("# makespan " + makespan + "\n");
+        out.write(instance.numJobs + " " + instance.numMachines + " # num-jobs num-machines\n");
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            for(int i = 0 ; i < instance.numJobs ; i++) {
+                if(i > 0)
+                    out.write(' ');
+                out.write(Integer.toString(order.tasksByMachine[m][i].job));
+            }
+            out.write('\n');
+        }
+    }
+
+    static ResourceOrder read(Path file, Instance instance) throws IOException {
+        Iterator<String> lines = Files.readAllLines(file).stream()
+                .filter(l -> !l.startsWith("#"))
+                .collect(Collectors.toList())
+                .iterator();
+
+        Scanner header = new Scanner(lines.next());
+        if(header.nextInt() != instance.numJobs || header.nextInt() != instance.numMachines)
+            throw new IOException("Solution size does not match the instance");
+
+        ResourceOrder order = new ResourceOrder(instance);
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            Scanner line = new Scanner(lines.next());
+            for(int i = 0 ; i < instance.numJobs ; i++) {
+                int job = line.nextInt();
+                if(job < 0 || job >= instance.numJobs)
+                    throw new IOException("Invalid job " + job + " on machine " + m);
+                order.tasksByMachine[m][order.nextFreeSlot[m]++] = new Task(job, instance.task_with_machine(job, m));
+            }
+        }
+        if(order.makespan() == Integer.MAX_VALUE)
+            throw new IOException("Stored solution is not feasible");
+        return order;
+    }
+}
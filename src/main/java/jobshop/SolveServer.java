@@ -0,0 +1,270 @@
+package jobshop;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import net.sourceforge.argparse4j.ArgumentParsers;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.ArgumentParserException;
+import net.sourceforge.argparse4j.inf.Namespace;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/** Long running HTTP service solving instances with the solvers of Main.
+ *
+ * Keeping the JVM alive between requests avoids paying for JVM startup, cold JIT and instance parsing on each
+ * solve, which dominates short deadlines. The server only listens on the loopback interface.
+ *
+ *  - GET /solve?instance=ft10&solver=taboo100_10&timeout=1000 : solves the instance `instances/ft10` with the given
+ *    solver and a timeout in ms, counted from the reception of the request (default: 1000).
+ *  - GET /status : number of cached instances, running and queued solves.
+ *
+ * Responses are plain text, one `key value` pair per line. Parsed instances are kept in a bounded LRU cache.
+ * Solves run on a fixed number of threads with a bounded queue : when it is full, requests are refused with
+ * HTTP 503 instead of piling up.
+ */
+public class SolveServer {
+
+    /** Longest timeout accepted for a solve request, in ms */
+    private static final long MAX_TIMEOUT_MS = 10 * 60 * 1000;
+    /** Valid instance names : no path separator, nothing a path could not contain */
+    private static final String INSTANCE_NAME = "[A-Za-z0-9_\\-]+";
+    /** Instance used to warm up the solvers when the server starts */
+    private static final String WARMUP_INSTANCE = "ft06";
+
+    private final HttpServer server;
+    private final Map<String, Solver> available;
+    private final ThreadPoolExecutor solvers;
+    private final Map<String, Instance> instances;
+
+    /** Creates a server on the given port (0 for any free port), not started yet.
+     *
+     * @param threads number of solves running at the same time
+     * @param queueSize number of accepted solves waiting for a thread
+     * @param cacheSize number of parsed instances kept in memory */
+    public SolveServer(int port, int threads, int queueSize, int cacheSize) throws IOException {
+        // loaded here rather than on the first request, building the solver table takes a few seconds
+        available = Main.solvers;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        solvers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize));
+        instances = new LinkedHashMap<String, Instance>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Instance> eldest) {
+                return size() > cacheSize;
+            }
+        };
+
+        server.createContext("/solve", this::handleSolve);
+        server.createContext("/status", this::handleStatus);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        solvers.shutdownNow();
+    }
+
+    /** Port on which the server listens. */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /** Runs each given solver for `ms` milliseconds on a small instance, so that its code is compiled by the JIT. */
+    public void warmup(List<String> solverNames, long ms) throws IOException {
+        Instance instance = instance(WARMUP_INSTANCE);
+        for(String name : solverNames) {
+            Solver solver = available.get(name);
+            if(solver == null)
+                throw new IllegalArgumentException("Unknown solver " + name);
+            solver.solve(instance, System.currentTimeMillis() + ms);
+        }
+    }
+
+    /** Parsed instance `instances/NAME`, from the cache if possible, or null if there is none.
+     * The name must match INSTANCE_NAME. */
+    private Instance instance(String name) throws IOException {
+        synchronized (instances) {
+            Instance instance = instances.get(name);
+            if(instance != null)
+                return instance;
+        }
+        // parsing is done outside of the lock, two requests may parse the same instance at the same time
+        if(!name.matches(INSTANCE_NAME))
+            throw new IllegalArgumentException("Invalid instance name " + name);
+        Path path = Paths.get("instances", name);
+        if(!Files.isRegularFile(path))
+            return null;
+        Instance instance = Instance.fromFile(path);
+        synchronized (instances) {
+            instances.put(name, instance);
+        }
+        return instance;
+    }
+
+    private void handleSolve(HttpExchange exchange) throws IOException {
+        long received = System.currentTimeMillis();
+        Map<String, String> params = queryParameters(exchange);
+        String instanceName = params.get("instance");
+        String solverName = params.get("solver");
+        Solver solver = solverName == null ? null : available.get(solverName);
+        if(instanceName == null || solver == null) {
+            respond(exchange, 400, "error unknown or missing solver/instance\n");
+            return;
+        }
+        long timeout;
+        try {
+            timeout = Long.parseLong(params.getOrDefault("timeout", "1000"));
+        } catch (NumberFormatException e) {
+            respond(exchange, 400, "error invalid timeout\n");
+            return;
+        }
+        if(timeout < 0 || timeout > MAX_TIMEOUT_MS) {
+            respond(exchange, 400, "error timeout must be between 0 and " + MAX_TIMEOUT_MS + " ms\n");
+            return;
+        }
+        if(!instanceName.matches(INSTANCE_NAME)) {
+            respond(exchange, 400, "error invalid instance name\n");
+            return;
+        }
+        Instance instance = instance(instanceName);
+        if(instance == null) {
+            respond(exchange, 404, "error no instance " + instanceName + "\n");
+            return;
+        }
+
+        long deadline = received + timeout;
+        try {
+            solvers.execute(() -> {
+                try {
+                    solve(exchange, instanceName, solverName, solver, instance, deadline);
+                } catch (IOException e) {
+                    // client went away, nothing to answer
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            respond(exchange, 503, "error too many solve requests\n");
+        }
+    }
+
+    private void solve(HttpExchange exchange, String instanceName, String solverName, Solver solver, Instance instance, long deadline) throws IOException {
+        long start = System.currentTimeMillis();
+        Result result;
+        try {
+            result = solver.solve(instance, deadline);
+        } catch (RuntimeException e) {
+            respond(exchange, 500, "error " + e + "\n");
+            return;
+        }
+        long runtime = System.currentTimeMillis() - start;
+        if(!result.schedule.isValid()) {
+            respond(exchange, 500, "error solver returned an invalid schedule\n");
+            return;
+        }
+
+        StringBuilder body = new StringBuilder();
+        body.append("instance ").append(instanceName).append('\n');
+        body.append("solver ").append(solverName).append('\n');
+        body.append("makespan ").append(result.schedule.makespan()).append('\n');
+        if(BestKnownResult.isKnown(instanceName))
+            body.append("best ").append(BestKnownResult.of(instanceName)).append('\n');
+        body.append("runtime ").append(runtime).append('\n');
+        body.append("cause ").append(result.cause).append('\n');
+        respond(exchange, 200, body.toString());
+    }
+
+    private void handleStatus(HttpExchange exchange) throws IOException {
+        int cached;
+        synchronized (instances) {
+            cached = instances.size();
+        }
+        respond(exchange, 200,
+                "cached " + cached + "\n" +
+                "running " + solvers.getActiveCount() + "\n" +
+                "queued " + solvers.getQueue().size() + "\n");
+    }
+
+    private static Map<String, String> queryParameters(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if(query == null)
+            return params;
+        for(String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if(eq > 0)
+                params.put(URLDecoder.decode(pair.substring(0, eq), "UTF-8"), URLDecoder.decode(pair.substring(eq + 1), "UTF-8"));
+        }
+        return params;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    public static void main(String[] args) {
+        ArgumentParser parser = ArgumentParsers.newFor("jsp-server").build()
+                .defaultHelp(true)
+                .description("Serves jobshop solve requests over HTTP on localhost.");
+        parser.addArgument("-p", "--port")
+                .setDefault(8080)
+                .type(Integer.class)
+                .help("Port to listen on");
+        parser.addArgument("--threads")
+                .setDefault(Runtime.getRuntime().availableProcessors())
+                .type(Integer.class)
+                .help("Number of solves running at the same time");
+        parser.addArgument("--queue")
+                .setDefault(16)
+                .type(Integer.class)
+                .help("Number of solve requests waiting for a thread before new ones are refused");
+        parser.addArgument("--cache")
+                .setDefault(64)
+                .type(Integer.class)
+                .help("Number of parsed instances kept in memory");
+        parser.addArgument("--warmup")
+                .nargs("*")
+                .setDefault(new ArrayList<String>())
+                .help("Solver(s) to run on " + WARMUP_INSTANCE + " before accepting requests");
+
+        Namespace ns = null;
+        try {
+            ns = parser.parseArgs(args);
+        } catch (ArgumentParserException e) {
+            parser.handleError(e);
+            System.exit(1);
+        }
+
+        try {
+            SolveServer server = new SolveServer(ns.getInt("port"), ns.getInt("threads"), ns.getInt("queue"), ns.getInt("cache"));
+            server.warmup(ns.getList("warmup"), 500);
+            server.start();
+            System.out.println("Listening on http://localhost:" + server.port() + "/solve");
+        } catch (IOException | IllegalArgumentException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package jobshop;
+
+/** A total time budget shared between the runs of a batch.
+ *
+ * Each run is given a weight (the number of tasks of its instance) and, when it starts, the share of the time left
+ * proportional to its weight among the weights of the runs not started yet. Time left unused by a run, because its
+ * solver proved optimality or stopped early, is thus shared by the following ones, and the last run gets all the
+ * time left. Starting with the smallest instances, which are the most likely to end early, hands their unused
+ * time to the larger ones.
+ *
+ * A run is never given less than MIN_RUN_MS, enough for the greedy construction every solver starts from, even when
+ * its share is smaller or the budget is spent : this time is taken from the shares of the following runs, and the
+ * batch may end after the budget when it is too small for all its runs.
+ */
+class TimeBudget {
+
+    /** Shortest time given to a run */
+    static final long MIN_RUN_MS = 100;
+
+    private final long end;
+    private long remainingWeight;
+
+    /** A budget of `totalMs` milliseconds from now, for runs whose weights sum to `totalWeight`. */
+    TimeBudget(long totalMs, long totalWeight) {
+        if(totalWeight <= 0)
+            throw new IllegalArgumentException("Total weight must be positive: " + totalWeight);
+        this.end = System.currentTimeMillis() + totalMs;
+        this.remainingWeight = totalWeight;
+    }
+
+    /** Deadline of a run of the given weight starting now. */
+    long nextDeadline(long weight) {
+        if(weight <= 0 || weight > remainingWeight)
+            throw new IllegalArgumentException("Invalid weight " + weight + ", remaining weight is " + remainingWeight);
+        long now = System.currentTimeMillis();
+        long left = Math.max(0, end - now);
+        long deadline = now + Math.max(MIN_RUN_MS, left * weight / remainingWeight);
+        remainingWeight -= weight;
+        return deadline;
+    }
+}
@@ -4,9 +4,8 @@ import jobshop.Encoding;
 import jobshop.Instance;
 import jobshop.Schedule;
 
+import java.nio.IntBuffer;
 import java.util.Arrays;
-import java.util.Comparator;
-import java.util.stream.IntStream;
 
 /** Représentation par numéro de job. */
 public class JobNumbers extends Encoding {
@@ -18,6 +17,11 @@ public class JobNumbers extends Encoding {
      * element of `jobs` that has not been set yet. */
     public int nextToSet = 0;
 
+    // scratch arrays reused by makespan(), allocated on first use
+    private int[] scratchMachineRelease;
+    private int[] scratchJobEnd;
+    private int[] scratchNextTask;
+
     public JobNumbers(Instance instance) {
         super(instance);
 
@@ -30,23 +34,9 @@ public class JobNumbers extends Encoding {
 
         this.jobs = new int[instance.numJobs * instance.numTasks];
 
-        // for each job indicates which is the next task to be scheduled
-        int[] nextOnJob = new int[instance.numJobs];
-
-        while(Arrays.stream(nextOnJob).anyMatch(t -> t < instance.numTasks)) {
-            Task next = IntStream
-                    // for all jobs numbers
-                    .range(0, instance.numJobs)
-                    // build the next task for this job
-                    .mapToObj(j -> new Task(j, nextOnJob[j]))
-                    // only keep valid tasks (some jobs have no task left to be executed)
-                    .filter(t -> t.task < instance.numTasks)
-                    // select the task with the earliest execution time
-                    .min(Comparator.comparing(t -> schedule.startTime(t.job, t.task)))
-                    .get();
-
-            this.jobs[nextToSet++] = next.job;
-            nextOnJob[next.job] += 1;
+        // jobs appear in the order in which their tasks start
+        for(int op : schedule.operationsByStartTime()) {
+            this.jobs[nextToSet++] = op / instance.numTasks;
         }
     }
 
@@ -55,26 +45,73 @@ public class JobNumbers extends Encoding {
         // time at which each machine is going to be freed
         int[] nextFreeTimeResource = new int[instance.numMachines];
 
-        // for each job, the first task that has not yet been scheduled
+        // for each job, the first task that has not yet been scheduled and the time at which its last scheduled task ends
         int[] nextTask = new int[instance.numJobs];
+        int[] jobEnd = new int[instance.numJobs];
 
-        // for each task, its start time
-        int[][] startTimes = new int[instance.numJobs][instance.numTasks];
+        // for each task, its start time (startTimes[job * numTasks + task]), off-heap for off-heap instances
+        int[] startTimes = instance.isOffHeap() ? null : new int[instance.numJobs * instance.numTasks];
+        IntBuffer offHeapStartTimes = startTimes == null ? Schedule.allocateOffHeapStartTimes(instance) : null;
 
         // compute the earliest start time for every task of every job
         for(int job : jobs) {
             int task = nextTask[job];
             int machine = instance.machine(job, task);
             // earliest start time for this task
-            int est = task == 0 ? 0 : startTimes[job][task-1] + instance.duration(job, task-1);
-            est = Math.max(est, nextFreeTimeResource[machine]);
+            int est = Math.max(jobEnd[job], nextFreeTimeResource[machine]);
 
-            startTimes[job][task] = est;
+            int op = job * instance.numTasks + task;
+            if(startTimes != null)
+                startTimes[op] = est;
+            else
+                offHeapStartTimes.put(op, est);
             nextFreeTimeResource[machine] = est + instance.duration(job, task);
+            jobEnd[job] = nextFreeTimeResource[machine];
             nextTask[job] = task + 1;
         }
 
-        return new Schedule(instance, startTimes);
+        return startTimes != null ? Schedule.wrap(instance, startTimes) : Schedule.wrap(instance, offHeapStartTimes);
+    }
+
+    /** Computes the makespan of the schedule built by toSchedule(), without building it. */
+    public int makespan() {
+        return makespan(Integer.MAX_VALUE);
+    }
+
+    /** Computes the makespan of this solution without allocating a Schedule.
+     *
+     * Decoding stops as soon as a task completes after `cutoff`. In that case the returned value
+     * is that completion time: it is greater than `cutoff` and a lower bound of the real makespan.
+     * Otherwise the exact makespan is returned.
+     *
+     * Scratch arrays are kept in this object, so a JobNumbers must not be evaluated concurrently. */
+    public int makespan(int cutoff) {
+        if(scratchMachineRelease == null) {
+            scratchMachineRelease = new int[instance.numMachines];
+            scratchJobEnd = new int[instance.numJobs];
+            scratchNextTask = new int[instance.numJobs];
+        }
+        int[] releaseTimeOfMachine = scratchMachineRelease;
+        int[] endTimeOfJob = scratchJobEnd;
+        int[] nextTask = scratchNextTask;
+        Arrays.fill(releaseTimeOfMachine, 0);
+        Arrays.fill(endTimeOfJob, 0);
+        Arrays.fill(nextTask, 0);
+
+        int makespan = 0;
+        for(int job : jobs) {
+            int task = nextTask[job]++;
+            int machine = instance.machine(job, task);
+            int end = Math.max(endTimeOfJob[job], releaseTimeOfMachine[machine]) + instance.duration(job, task);
+            if(end > cutoff)
+                return end;
+
+            endTimeOfJob[job] = end;
+            releaseTimeOfMachine[machine] = end;
+            if(end > makespan)
+                makespan = end;
+        }
+        return makespan;
     }
 
     @Override
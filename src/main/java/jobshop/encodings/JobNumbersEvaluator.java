@@ -0,0 +1,203 @@
+package jobshop.encodings;
+
+import jobshop.Instance;
+
+import java.util.Arrays;
+
+/** Incremental makespan evaluation of moves on a JobNumbers sequence.
+ *
+ * The evaluator keeps a base sequence and, every `interval` positions, a checkpoint of the decoding state
+ * (release time of each machine, end time and next task of each job). A move changing the sequence from
+ * position k only needs to resume decoding from the last checkpoint before k instead of starting from 0.
+ *
+ * Example with interval = 3 and base [0 1 1 0 0 1] : checkpoints are stored before positions 0 and 3.
+ * Swapping positions 4 and 5 restores the checkpoint at position 3 and decodes [0 1 0] from there.
+ *
+ * An evaluator holds mutable scratch state and must not be shared between threads.
+ */
+public class JobNumbersEvaluator {
+
+    public final Instance instance;
+
+    /** Number of positions between two checkpoints. */
+    public final int interval;
+
+    // base sequence, temporarily modified while a move is evaluated
+    private final int[] sequence;
+    private int baseMakespan;
+
+    // checkpoint c holds the decoding state before position c * interval
+    private final int[] checkpointMachineRelease;
+    private final int[] checkpointJobEnd;
+    private final int[] checkpointNextTask;
+    private final int[] checkpointMakespan;
+
+    // decoding state
+    private final int[] releaseTimeOfMachine;
+    private final int[] endTimeOfJob;
+    private final int[] nextTask;
+
+    /** Creates an evaluator with one checkpoint every `numJobs` positions. */
+    public JobNumbersEvaluator(Instance instance) {
+        this(instance, instance.numJobs);
+    }
+
+    public JobNumbersEvaluator(Instance instance, int interval) {
+        if(interval < 1)
+            throw new IllegalArgumentException("Checkpoint interval must be positive: " + interval);
+        this.instance = instance;
+        this.interval = interval;
+
+        int length = instance.numJobs * instance.numTasks;
+        sequence = new int[length];
+        int numCheckpoints = (length + interval - 1) / interval;
+        checkpointMachineRelease = new int[numCheckpoints * instance.numMachines];
+        checkpointJobEnd = new int[numCheckpoints * instance.numJobs];
+        checkpointNextTask = new int[numCheckpoints * instance.numJobs];
+        checkpointMakespan = new int[numCheckpoints];
+
+        releaseTimeOfMachine = new int[instance.numMachines];
+        endTimeOfJob = new int[instance.numJobs];
+        nextTask = new int[instance.numJobs];
+    }
+
+    /** Uses a copy of the given (complete) solution as the base sequence and recomputes all checkpoints. */
+    public void setBase(JobNumbers sol) {
+        assert sol.instance == instance;
+        System.arraycopy(sol.jobs, 0, sequence, 0, sequence.length);
+        rebuildCheckpoints(0);
+    }
+
+    /** Makespan of the base sequence. */
+    public int baseMakespan() {
+        return baseMakespan;
+    }
+
+    /** Copies the base sequence into a new JobNumbers. */
+    public JobNumbers toJobNumbers() {
+        JobNumbers sol = new JobNumbers(instance);
+        System.arraycopy(sequence, 0, sol.jobs, 0, sequence.length);
+        sol.nextToSet = sequence.length;
+        return sol;
+    }
+
+    /** Makespan of the base sequence in which positions i and j are exchanged.
+     * As for JobNumbers.makespan(int), the returned value is only a lower bound when it exceeds `cutoff`. */
+    public int evaluateSwap(int i, int j, int cutoff) {
+        if(sequence[i] == sequence[j])
+            return baseMakespan;
+        swap(i, j);
+        int makespan = decodeFrom(Math.min(i, j), cutoff);
+        swap(i, j);
+        return makespan;
+    }
+
+    /** Makespan of the base sequence in which the element at position `from` is removed and inserted back at
+     * position `to`. As for JobNumbers.makespan(int), the returned value is only a lower bound when it exceeds `cutoff`. */
+    public int evaluateInsertion(int from, int to, int cutoff) {
+        if(from == to)
+            return baseMakespan;
+        move(from, to);
+        int makespan = decodeFrom(Math.min(from, to), cutoff);
+        move(to, from);
+        return makespan;
+    }
+
+    /** Evaluates a batch of swaps against the base sequence: makespans[k] receives the result of
+     * evaluateSwap(first[k], second[k], cutoff). */
+    public void evaluateSwaps(int[] first, int[] second, int count, int cutoff, int[] makespans) {
+        for(int k = 0 ; k < count ; k++) {
+            makespans[k] = evaluateSwap(first[k], second[k], cutoff);
+        }
+    }
+
+    /** Evaluates a batch of insertions against the base sequence: makespans[k] receives the result of
+     * evaluateInsertion(from[k], to[k], cutoff). */
+    public void evaluateInsertions(int[] from, int[] to, int count, int cutoff, int[] makespans) {
+        for(int k = 0 ; k < count ; k++) {
+            makespans[k] = evaluateInsertion(from[k], to[k], cutoff);
+        }
+    }
+
+    /** Applies a swap on the base sequence, only checkpoints after the change are recomputed. */
+    public void commitSwap(int i, int j) {
+        swap(i, j);
+        rebuildCheckpoints(Math.min(i, j) / interval);
+    }
+
+    /** Applies an insertion on the base sequence, only checkpoints after the change are recomputed. */
+    public void commitInsertion(int from, int to) {
+        move(from, to);
+        rebuildCheckpoints(Math.min(from, to) / interval);
+    }
+
+    private void swap(int i, int j) {
+        int tmp = sequence[i];
+        sequence[i] = sequence[j];
+        sequence[j] = tmp;
+    }
+
+    /** Moves the element at position `from` to position `to`, shifting the ones in between. */
+    private void move(int from, int to) {
+        int job = sequence[from];
+        if(from < to)
+            System.arraycopy(sequence, from + 1, sequence, from, to - from);
+        else
+            System.arraycopy(sequence, to, sequence, to + 1, from - to);
+        sequence[to] = job;
+    }
+
+    /** Restores checkpoint c into the decoding state and returns the makespan of the prefix. */
+    private int restore(int c) {
+        System.arraycopy(checkpointMachineRelease, c * instance.numMachines, releaseTimeOfMachine, 0, instance.numMachines);
+        System.arraycopy(checkpointJobEnd, c * instance.numJobs, endTimeOfJob, 0, instance.numJobs);
+        System.arraycopy(checkpointNextTask, c * instance.numJobs, nextTask, 0, instance.numJobs);
+        return checkpointMakespan[c];
+    }
+
+    /** Decodes the current sequence, resuming from the last checkpoint before `position`. */
+    private int decodeFrom(int position, int cutoff) {
+        int c = position / interval;
+        int makespan = restore(c);
+        for(int p = c * interval ; p < sequence.length ; p++) {
+            int end = schedule(sequence[p]);
+            if(end > cutoff)
+                return end;
+            if(end > makespan)
+                makespan = end;
+        }
+        return makespan;
+    }
+
+    /** Recomputes all checkpoints after checkpoint c (which must be up to date) and the base makespan. */
+    private void rebuildCheckpoints(int c) {
+        if(c == 0) {
+            Arrays.fill(checkpointMachineRelease, 0, instance.numMachines, 0);
+            Arrays.fill(checkpointJobEnd, 0, instance.numJobs, 0);
+            Arrays.fill(checkpointNextTask, 0, instance.numJobs, 0);
+            checkpointMakespan[0] = 0;
+        }
+        int makespan = restore(c);
+        for(int p = c * interval ; p < sequence.length ; p++) {
+            if(p % interval == 0 && p / interval > c) {
+                int saved = p / interval;
+                System.arraycopy(releaseTimeOfMachine, 0, checkpointMachineRelease, saved * instance.numMachines, instance.numMachines);
+                System.arraycopy(endTimeOfJob, 0, checkpointJobEnd, saved * instance.numJobs, instance.numJobs);
+                System.arraycopy(nextTask, 0, checkpointNextTask, saved * instance.numJobs, instance.numJobs);
+                checkpointMakespan[saved] = makespan;
+            }
+            makespan = Math.max(makespan, schedule(sequence[p]));
+        }
+        baseMakespan = makespan;
+    }
+
+    /** Schedules the next task of the job at its earliest start time and returns its end time. */
+    private int schedule(int job) {
+        int task = nextTask[job]++;
+        int machine = instance.machine(job, task);
+        int end = Math.max(endTimeOfJob[job], releaseTimeOfMachine[machine]) + instance.duration(job, task);
+        endTimeOfJob[job] = end;
+        releaseTimeOfMachine[machine] = end;
+        return end;
+    }
+}
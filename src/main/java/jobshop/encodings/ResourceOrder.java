@@ -4,7 +4,8 @@ import jobshop.Encoding;
 import jobshop.Instance;
 import jobshop.Schedule;
 
-import java.util.Comparator;
+import java.nio.IntBuffer;
+import java.util.Arrays;
 import java.util.Optional;
 import java.util.stream.IntStream;
 
@@ -17,6 +18,12 @@ public class ResourceOrder extends Encoding {
     // for each machine, indicate on many tasks have been initialized
     public final int[] nextFreeSlot;
 
+    // scratch arrays reused by makespan(), allocated on first use
+    private int[] scratchNextByJob;
+    private int[] scratchNextByMachine;
+    private int[] scratchJobEnd;
+    private int[] scratchMachineRelease;
+
     /** Creates a new empty resource order. */
     public ResourceOrder(Instance instance)
     {
@@ -35,28 +42,26 @@ public class ResourceOrder extends Encoding {
         super(schedule.pb);
         Instance pb = schedule.pb;
 
-        this.tasksByMachine = new Task[pb.numMachines][];
+        this.tasksByMachine = new Task[pb.numMachines][pb.numJobs];
         this.nextFreeSlot = new int[instance.numMachines];
 
-        for(int m = 0 ; m<schedule.pb.numMachines ; m++) {
-            final int machine = m;
-
-            // for thi machine, find all tasks that are executed on it and sort them by their start time
-            tasksByMachine[m] =
-                    IntStream.range(0, pb.numJobs) // all job numbers
-                            .mapToObj(j -> new Task(j, pb.task_with_machine(j, machine))) // all tasks on this machine (one per job)
-                            .sorted(Comparator.comparing(t -> schedule.startTime(t.job, t.task))) // sorted by start time
-                            .toArray(Task[]::new); // as new array and store in tasksByMachine
-
-            // indicate that all tasks have been initialized for machine m
-            nextFreeSlot[m] = instance.numJobs;
+        // tasks are appended to their machine by increasing start time
+        for(int op : schedule.operationsByStartTime()) {
+            Task t = new Task(op / pb.numTasks, op % pb.numTasks);
+            int machine = pb.machine(t);
+            tasksByMachine[machine][nextFreeSlot[machine]++] = t;
         }
     }
 
     @Override
     public Schedule toSchedule() {
-        // indicate for each task that have been scheduled, its start time
-        int [][] startTimes = new int [instance.numJobs][instance.numTasks];
+        // indicate for each task that have been scheduled, its start time (startTimes[job * numTasks + task]),
+        // off-heap for off-heap instances
+        int[] startTimes = instance.isOffHeap() ? null : new int[instance.numJobs * instance.numTasks];
+        IntBuffer offHeapStartTimes = startTimes == null ? Schedule.allocateOffHeapStartTimes(instance) : null;
+
+        // for each job, the time at which its last scheduled task ends
+        int[] jobEnd = new int[instance.numJobs];
 
         // for each job, how many tasks have been scheduled (0 initially)
         int[] nextToScheduleByJob = new int[instance.numJobs];
@@ -88,27 +93,99 @@ public class ResourceOrder extends Encoding {
                 int machine = instance.machine(t.job, t.task);
 
                 // compute the earliest start time (est) of the task
-                int est = t.task == 0 ? 0 : startTimes[t.job][t.task-1] + instance.duration(t.job, t.task-1);
-                est = Math.max(est, releaseTimeOfMachine[instance.machine(t)]);
-                startTimes[t.job][t.task] = est;
+                int op = t.job * instance.numTasks + t.task;
+                int est = Math.max(jobEnd[t.job], releaseTimeOfMachine[machine]);
+                if(startTimes != null)
+                    startTimes[op] = est;
+                else
+                    offHeapStartTimes.put(op, est);
 
                 // mark the task as scheduled
                 nextToScheduleByJob[t.job]++;
                 nextToScheduleByMachine[machine]++;
                 // increase the release time of the machine
                 releaseTimeOfMachine[machine] = est + instance.duration(t.job, t.task);
+                jobEnd[t.job] = releaseTimeOfMachine[machine];
             } else {
                 // no tasks are schedulable, there is no solution for this resource ordering
                 return null;
             }
         }
         // we exited the loop : all tasks have been scheduled successfully
-        return new Schedule(instance, startTimes);
+        return startTimes != null ? Schedule.wrap(instance, startTimes) : Schedule.wrap(instance, offHeapStartTimes);
+    }
+
+    /** Computes the makespan of the schedule built by toSchedule(), without building it.
+     * Returns Integer.MAX_VALUE if this resource order has no solution. */
+    public int makespan() {
+        return makespan(Integer.MAX_VALUE);
+    }
+
+    /** Computes the makespan of this resource order without allocating a Schedule.
+     *
+     * Decoding stops as soon as a task completes after `cutoff`. In that case the returned value
+     * is that completion time: it is greater than `cutoff` and a lower bound of the real makespan.
+     * If the ordering contains a cycle, Integer.MAX_VALUE is returned.
+     *
+     * Scratch arrays are kept in this object, so a ResourceOrder must not be evaluated concurrently. */
+    public int makespan(int cutoff) {
+        if(scratchNextByJob == null) {
+            scratchNextByJob = new int[instance.numJobs];
+            scratchNextByMachine = new int[instance.numMachines];
+            scratchJobEnd = new int[instance.numJobs];
+            scratchMachineRelease = new int[instance.numMachines];
+        }
+        int[] nextToScheduleByJob = scratchNextByJob;
+        int[] nextToScheduleByMachine = scratchNextByMachine;
+        int[] endTimeOfJob = scratchJobEnd;
+        int[] releaseTimeOfMachine = scratchMachineRelease;
+        Arrays.fill(nextToScheduleByJob, 0);
+        Arrays.fill(nextToScheduleByMachine, 0);
+        Arrays.fill(endTimeOfJob, 0);
+        Arrays.fill(releaseTimeOfMachine, 0);
+
+        int remaining = instance.numJobs * instance.numTasks;
+        int makespan = 0;
+        while(remaining > 0) {
+            boolean progress = false;
+            for(int machine = 0 ; machine < instance.numMachines ; machine++) {
+                // schedule on this machine every task whose job predecessor is already scheduled
+                while(nextToScheduleByMachine[machine] < instance.numJobs) {
+                    Task t = tasksByMachine[machine][nextToScheduleByMachine[machine]];
+                    if(t.task != nextToScheduleByJob[t.job])
+                        break;
+
+                    int end = Math.max(endTimeOfJob[t.job], releaseTimeOfMachine[machine]) + instance.duration(t.job, t.task);
+                    if(end > cutoff)
+                        return end;
+
+                    endTimeOfJob[t.job] = end;
+                    releaseTimeOfMachine[machine] = end;
+                    nextToScheduleByJob[t.job]++;
+                    nextToScheduleByMachine[machine]++;
+                    remaining--;
+                    progress = true;
+                    if(end > makespan)
+                        makespan = end;
+                }
+            }
+            if(!progress) {
+                // cyclic dependency, there is no solution for this resource ordering
+                return Integer.MAX_VALUE;
+            }
+        }
+        return makespan;
     }
 
     /** Creates an exact copy of this resource order. */
     public ResourceOrder copy() {
-        return new ResourceOrder(this.toSchedule());
+        // tasks are immutable and can be shared between the two orders
+        ResourceOrder copy = new ResourceOrder(instance);
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            System.arraycopy(tasksByMachine[m], 0, copy.tasksByMachine[m], 0, instance.numJobs);
+        }
+        System.arraycopy(nextFreeSlot, 0, copy.nextFreeSlot, 0, instance.numMachines);
+        return copy;
     }
 
     @Override
@@ -0,0 +1,63 @@
+package jobshop.encodings;
+
+import jobshop.Instance;
+
+import java.util.SplittableRandom;
+
+/** Zobrist hashing of ResourceOrder solutions of an instance.
+ *
+ * A random 64 bits key is associated with every (task, position on its machine) pair and the hash of
+ * a resource order is the XOR of the keys of all its tasks. Swapping two tasks on a machine only changes
+ * four keys, so the hash of a neighbor is obtained in O(1) from the hash of the current solution.
+ *
+ * Two different orders have the same hash with a probability of about 2^-64.
+ */
+public class ZobristHash {
+
+    public final Instance instance;
+
+    // keys[(job * numTasks + task) * numJobs + position]
+    private final long[] keys;
+
+    public ZobristHash(Instance instance) {
+        this(instance, 0);
+    }
+
+    public ZobristHash(Instance instance, long seed) {
+        this.instance = instance;
+        SplittableRandom random = new SplittableRandom(seed);
+        keys = new long[instance.numJobs * instance.numTasks * instance.numJobs];
+        for(int i = 0 ; i < keys.length ; i++) {
+            keys[i] = random.nextLong();
+        }
+    }
+
+    /** Key of a task placed at the given position on its machine. */
+    public long key(Task t, int position) {
+        return key(t.job * instance.numTasks + t.task, position);
+    }
+
+    /** Key of the operation job * numTasks + task placed at the given position on its machine. */
+    public long key(int op, int position) {
+        return keys[op * instance.numJobs + position];
+    }
+
+    /** Hash of a complete resource order, computed from scratch. */
+    public long hash(ResourceOrder order) {
+        long hash = 0;
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            for(int i = 0 ; i < instance.numJobs ; i++) {
+                hash ^= key(order.tasksByMachine[m][i], i);
+            }
+        }
+        return hash;
+    }
+
+    /** Given the hash of `order`, returns its hash once the tasks at positions i and j of `machine` are swapped.
+     * The result is the same whether it is called before or after the swap is applied on `order`. */
+    public long swap(long hash, ResourceOrder order, int machine, int i, int j) {
+        Task a = order.tasksByMachine[machine][i];
+        Task b = order.tasksByMachine[machine][j];
+        return hash ^ key(a, i) ^ key(b, j) ^ key(a, j) ^ key(b, i);
+    }
+}
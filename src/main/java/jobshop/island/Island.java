@@ -0,0 +1,165 @@
+package jobshop.island;
+
+import jobshop.Instance;
+import jobshop.encodings.PriorityRules;
+import jobshop.encodings.ResourceOrder;
+import jobshop.solvers.GreedySolver;
+import jobshop.solvers.SimulatedAnnealingSolver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+/** An island of the island model : a process that receives an instance from the coordinator, runs
+ * simulated annealing in short epochs and exchanges its best solutions with the other islands.
+ *
+ * After each epoch, the island sends its best solution if it improved, then restarts from the best
+ * solution received from the coordinator if it is better than its own, or from its own best otherwise.
+ *
+ * Usage : java -cp JSP.jar jobshop.island.Island HOST PORT
+ */
+public class Island {
+
+    /** Number of epochs in the time given to the island, solutions are exchanged between epochs */
+    private static final int NUM_EPOCHS = 10;
+    /** Shortest epoch in ms */
+    private static final long MIN_EPOCH_MS = 50;
+    /** Time spent retrying to connect to a coordinator that is not yet listening */
+    private static final long CONNECT_TIMEOUT_MS = 5000;
+
+    public static void main(String[] args) {
+        if(args.length != 2) {
+            System.err.println("usage: jobshop.island.Island HOST PORT");
+            System.exit(1);
+        }
+        try {
+            run(args[0], Integer.parseInt(args[1]));
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /** Connects to the coordinator and runs the island until the coordinator stops it. */
+    public static void run(String host, int port) throws IOException {
+        try (Socket socket = connect(host, port)) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+            if(in.readByte() != IslandProtocol.INSTANCE)
+                throw new IOException("Expected an instance from the coordinator");
+            IslandProtocol.Problem problem = IslandProtocol.readInstance(in);
+            new Island(problem, in, out).search();
+        }
+    }
+
+    private static Socket connect(String host, int port) throws IOException {
+        long giveUp = System.currentTimeMillis() + CONNECT_TIMEOUT_MS;
+        while(true) {
+            Socket socket = new Socket();
+            try {
+                socket.connect(new InetSocketAddress(host, port), (int) CONNECT_TIMEOUT_MS);
+                return socket;
+            } catch (ConnectException e) {
+                socket.close();
+                if(System.currentTimeMillis() > giveUp)
+                    throw e;
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private final Instance instance;
+    private final long deadline;
+    private final long seed;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+
+    // written by the reader thread : once published, a received order is never modified by the reader
+    private volatile boolean stopped = false;
+    private volatile ResourceOrder received = null;
+    private int receivedMakespan = Integer.MAX_VALUE;
+
+    private Island(IslandProtocol.Problem problem, DataInputStream in, DataOutputStream out) {
+        this.instance = problem.instance;
+        this.deadline = System.currentTimeMillis() + problem.remainingMs;
+        this.seed = problem.seed;
+        this.in = in;
+        this.out = out;
+    }
+
+    private void search() throws IOException {
+        Thread reader = new Thread(this::readMessages, "island-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        ResourceOrder best = new ResourceOrder(new GreedySolver(PriorityRules.EST_LRPT).solve(instance, deadline).schedule);
+        int bestMakespan = best.makespan();
+        IslandProtocol.writeSolution(out, best, bestMakespan);
+
+        long epochMs = Math.max(MIN_EPOCH_MS, (deadline - System.currentTimeMillis()) / NUM_EPOCHS);
+        ResourceOrder start = best;
+        for(int epoch = 0 ; !stopped && deadline - System.currentTimeMillis() > 1 ; epoch++) {
+            long epochDeadline = Math.min(deadline, System.currentTimeMillis() + epochMs);
+            SimulatedAnnealingSolver annealing = new SimulatedAnnealingSolver(seed * 31 + epoch);
+            ResourceOrder found = new ResourceOrder(annealing.solve(start, epochDeadline).schedule);
+            int makespan = found.makespan();
+            if(makespan < bestMakespan) {
+                best = found;
+                bestMakespan = makespan;
+                IslandProtocol.writeSolution(out, best, bestMakespan);
+            }
+
+            // migration : continue from the best solution of the other islands if it is better
+            ResourceOrder migrant = received;
+            start = migrant != null && migrant.makespan(bestMakespan - 1) < bestMakespan ? migrant : best;
+        }
+
+        // wait for the coordinator to stop us, then send our best solution a last time
+        try {
+            reader.join(Math.max(0, deadline - System.currentTimeMillis()) + CONNECT_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            IslandProtocol.writeSolution(out, best, bestMakespan);
+        } catch (IOException e) {
+            // coordinator already gone, it received our improvements as they were found
+        }
+    }
+
+    /** Reads solutions sent by the coordinator until it asks the island to stop. */
+    private void readMessages() {
+        try {
+            while(true) {
+                byte type = in.readByte();
+                if(type == IslandProtocol.STOP) {
+                    break;
+                } else if(type == IslandProtocol.SOLUTION) {
+                    ResourceOrder order = IslandProtocol.readSolution(in, instance);
+                    int makespan = order.makespan();
+                    if(makespan < receivedMakespan) {
+                        receivedMakespan = makespan;
+                        received = order;
+                    }
+                } else {
+                    throw new IOException("Unexpected message type " + type);
+                }
+            }
+        } catch (IOException e) {
+            // coordinator gone : finish the current epoch and exit
+        }
+        stopped = true;
+    }
+}
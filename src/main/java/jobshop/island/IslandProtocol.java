@@ -0,0 +1,113 @@
+package jobshop.island;
+
+import jobshop.Instance;
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.Task;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/** Binary messages exchanged between the coordinator (IslandSolver) and the islands.
+ *
+ * Every message starts with a one byte type, all numbers are big-endian :
+ *  - INSTANCE (coordinator to island) : numJobs, numTasks (int), then for each job and task its
+ *    machine (unsigned short) and duration (int), then the time left before the deadline in ms (long)
+ *    and the seed of the island (long).
+ *  - SOLUTION (both ways) : makespan (int), then for each machine the jobs in the order in which they
+ *    are executed (unsigned short). A 100x20 solution is thus sent in about 4kB.
+ *  - STOP (coordinator to island) : no content. The island answers with its best SOLUTION and closes.
+ */
+final class IslandProtocol {
+
+    static final byte INSTANCE = 'I';
+    static final byte SOLUTION = 'S';
+    static final byte STOP = 'X';
+
+    /** Largest number of jobs or machines that fit in an unsigned short */
+    private static final int MAX_INDEX = 0xFFFF;
+
+    private IslandProtocol() {}
+
+    /** Problem sent to an island when it connects. */
+    static final class Problem {
+        final Instance instance;
+        final long remainingMs;
+        final long seed;
+
+        Problem(Instance instance, long remainingMs, long seed) {
+            this.instance = instance;
+            this.remainingMs = remainingMs;
+            this.seed = seed;
+        }
+    }
+
+    static void writeInstance(DataOutputStream out, Instance instance, long remainingMs, long seed) throws IOException {
+        if(instance.numJobs > MAX_INDEX || instance.numMachines > MAX_INDEX)
+            throw new IllegalArgumentException("Instance too large for the island protocol");
+        out.writeByte(INSTANCE);
+        out.writeInt(instance.numJobs);
+        out.writeInt(instance.numTasks);
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            for(int t = 0 ; t < instance.numTasks ; t++) {
+                out.writeShort(instance.machine(j, t));
+                out.writeInt(instance.duration(j, t));
+            }
+        }
+        out.writeLong(remainingMs);
+        out.writeLong(seed);
+        out.flush();
+    }
+
+    /** Reads the content of an INSTANCE message whose type byte was already read. */
+    static Problem readInstance(DataInputStream in) throws IOException {
+        int numJobs = in.readInt();
+        int numTasks = in.readInt();
+        if(numJobs < 0 || numJobs > MAX_INDEX || numTasks < 0 || numTasks > MAX_INDEX)
+            throw new IOException("Invalid instance size " + numJobs + "x" + numTasks);
+        int[][] machines = new int[numJobs][numTasks];
+        int[][] durations = new int[numJobs][numTasks];
+        for(int j = 0 ; j < numJobs ; j++) {
+            for(int t = 0 ; t < numTasks ; t++) {
+                machines[j][t] = in.readUnsignedShort();
+                durations[j][t] = in.readInt();
+            }
+        }
+        long remainingMs = in.readLong();
+        long seed = in.readLong();
+        return new Problem(new Instance(machines, durations), remainingMs, seed);
+    }
+
+    static void writeSolution(DataOutputStream out, ResourceOrder order, int makespan) throws IOException {
+        out.writeByte(SOLUTION);
+        out.writeInt(makespan);
+        for(int m = 0 ; m < order.instance.numMachines ; m++) {
+            for(int i = 0 ; i < order.instance.numJobs ; i++) {
+                out.writeShort(order.tasksByMachine[m][i].job);
+            }
+        }
+        out.flush();
+    }
+
+    /** Reads the content of a SOLUTION message whose type byte was already read.
+     * The announced makespan is not trusted : the returned order must be evaluated by the caller. */
+    static ResourceOrder readSolution(DataInputStream in, Instance instance) throws IOException {
+        in.readInt();
+        ResourceOrder order = new ResourceOrder(instance);
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            for(int i = 0 ; i < instance.numJobs ; i++) {
+                int job = in.readUnsignedShort();
+                if(job >= instance.numJobs)
+                    throw new IOException("Invalid job " + job + " on machine " + m);
+                order.tasksByMachine[m][i] = new Task(job, instance.task_with_machine(job, m));
+            }
+            order.nextFreeSlot[m] = instance.numJobs;
+        }
+        return order;
+    }
+
+    static void writeStop(DataOutputStream out) throws IOException {
+        out.writeByte(STOP);
+        out.flush();
+    }
+}
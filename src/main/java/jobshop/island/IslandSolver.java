@@ -0,0 +1,234 @@
+package jobshop.island;
+
+import jobshop.Instance;
+import jobshop.Result;
+import jobshop.Solver;
+import jobshop.encodings.PriorityRules;
+import jobshop.encodings.ResourceOrder;
+import jobshop.solvers.GreedySolver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Coordinator of the island model : several Island processes search the same instance and
+ * exchange their best solutions through this solver.
+ *
+ * The coordinator listens on a TCP port, sends the instance to each island that connects, forwards every
+ * improvement of the global best solution to all other islands and stops them all shortly before the deadline.
+ * Islands can be started as local JVMs by the coordinator itself (on the loopback interface) or launched by hand
+ * on other machines with `java -cp JSP.jar jobshop.island.Island HOST PORT`.
+ */
+public class IslandSolver implements Solver {
+
+    /** Time before the deadline at which islands are stopped, to collect their last solutions */
+    private static final long STOP_MARGIN_MS = 100;
+
+    private final int numIslands;
+    private final int port;
+    private final boolean spawnLocal;
+
+    /** Island model with `numIslands` JVMs started on this machine, on any free loopback port. */
+    public IslandSolver(int numIslands) {
+        this(numIslands, 0, true);
+    }
+
+    /** Island model on the given port (0 for any free port).
+     * If `spawnLocal` is true, islands are started as local JVMs and the coordinator only listens on loopback,
+     * otherwise it listens on all interfaces and waits for `numIslands` islands to connect. */
+    public IslandSolver(int numIslands, int port, boolean spawnLocal) {
+        if(numIslands < 1)
+            throw new IllegalArgumentException("At least one island is needed: " + numIslands);
+        this.numIslands = numIslands;
+        this.port = port;
+        this.spawnLocal = spawnLocal;
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline) {
+        ResourceOrder greedy = new ResourceOrder(new GreedySolver(PriorityRules.EST_LRPT).solve(instance, deadline).schedule);
+        Coordinator coordinator = new Coordinator(instance, greedy);
+        long stopTime = deadline - STOP_MARGIN_MS;
+
+        List<Process> processes = new ArrayList<>();
+        InetAddress bindAddress = spawnLocal ? InetAddress.getLoopbackAddress() : null;
+        try (ServerSocket server = new ServerSocket(port, numIslands, bindAddress)) {
+            if(spawnLocal) {
+                for(int i = 0 ; i < numIslands ; i++) {
+                    processes.add(spawnIsland(server.getLocalPort()));
+                }
+            }
+
+            // accept islands until all of them are connected
+            while(coordinator.islands.size() < numIslands && stopTime - System.currentTimeMillis() > 0) {
+                server.setSoTimeout((int) Math.max(1, stopTime - System.currentTimeMillis()));
+                try {
+                    coordinator.accept(server.accept(), stopTime);
+                } catch (SocketTimeoutException e) {
+                    break;
+                }
+            }
+
+            coordinator.awaitUntil(stopTime);
+            coordinator.stopAll(deadline);
+        } catch (IOException e) {
+            throw new RuntimeException("Island coordinator failed", e);
+        } finally {
+            for(Process p : processes)
+                p.destroy();
+        }
+
+        return new Result(instance, coordinator.best().toSchedule(), Result.ExitCause.Timeout);
+    }
+
+    private static Process spawnIsland(int port) throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        return new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                Island.class.getName(), InetAddress.getLoopbackAddress().getHostAddress(), String.valueOf(port))
+                .inheritIO()
+                .start();
+    }
+
+    /** Global best solution and connections to the islands. */
+    private static final class Coordinator {
+        final Instance instance;
+        final List<Connection> islands = new ArrayList<>();
+        private ResourceOrder best;
+        private int bestMakespan;
+
+        Coordinator(Instance instance, ResourceOrder initial) {
+            this.instance = instance;
+            this.best = initial;
+            this.bestMakespan = initial.makespan();
+        }
+
+        synchronized ResourceOrder best() {
+            return best;
+        }
+
+        void accept(Socket socket, long stopTime) throws IOException {
+            socket.setTcpNoDelay(true);
+            Connection island = new Connection(this, socket);
+            synchronized (island) {
+                IslandProtocol.writeInstance(island.out, instance, stopTime - System.currentTimeMillis(), islands.size());
+            }
+            synchronized (this) {
+                islands.add(island);
+            }
+            island.reader.start();
+        }
+
+        /** Sleeps until the given time, islands report their solutions in the meantime. */
+        synchronized void awaitUntil(long time) {
+            long remaining;
+            while((remaining = time - System.currentTimeMillis()) > 0) {
+                try {
+                    wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        /** Asks all islands to stop and waits (at most until the deadline) for their last solution. */
+        void stopAll(long deadline) {
+            List<Connection> connected;
+            synchronized (this) {
+                connected = new ArrayList<>(islands);
+            }
+            for(Connection island : connected) {
+                island.send(null, 0);
+            }
+            for(Connection island : connected) {
+                try {
+                    island.reader.join(Math.max(1, deadline - System.currentTimeMillis()));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                island.close();
+            }
+        }
+
+        /** Called by the reader of `from` with a solution it sent. */
+        void offer(ResourceOrder order, Connection from) {
+            int makespan = order.makespan();
+            List<Connection> others = new ArrayList<>();
+            synchronized (this) {
+                if(makespan >= bestMakespan)
+                    return;
+                best = order;
+                bestMakespan = makespan;
+                for(Connection island : islands) {
+                    if(island != from)
+                        others.add(island);
+                }
+            }
+            for(Connection island : others) {
+                island.send(order, makespan);
+            }
+        }
+    }
+
+    /** Connection to one island, with a thread reading the solutions it sends. */
+    private static final class Connection {
+        final Socket socket;
+        final DataInputStream in;
+        final DataOutputStream out;
+        final Thread reader;
+        private boolean stopped = false;
+
+        Connection(Coordinator coordinator, Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            this.reader = new Thread(() -> {
+                try {
+                    while(true) {
+                        byte type = in.readByte();
+                        if(type != IslandProtocol.SOLUTION)
+                            throw new IOException("Unexpected message type " + type);
+                        ResourceOrder order = IslandProtocol.readSolution(in, coordinator.instance);
+                        coordinator.offer(order, this);
+                    }
+                } catch (IOException e) {
+                    // island closed its connection (or sent garbage) : ignore it from now on
+                }
+            }, "island-coordinator-reader");
+            this.reader.setDaemon(true);
+        }
+
+        /** Sends a solution to the island, or a stop request if `order` is null. Failures are ignored. */
+        synchronized void send(ResourceOrder order, int makespan) {
+            if(stopped)
+                return;
+            try {
+                if(order == null) {
+                    stopped = true;
+                    IslandProtocol.writeStop(out);
+                } else {
+                    IslandProtocol.writeSolution(out, order, makespan);
+                }
+            } catch (IOException e) {
+                stopped = true;
+            }
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // nothing more to do with this island
+            }
+        }
+    }
+}
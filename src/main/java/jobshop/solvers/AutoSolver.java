@@ -0,0 +1,142 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.Result;
+import jobshop.Solver;
+import jobshop.encodings.PriorityRules;
+import jobshop.encodings.ResourceOrder;
+
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+/** Picks a solver from cheap features of the instance.
+ *
+ * The first profile of PROFILES whose condition holds gives the solver : either the exact branch and bound alone,
+ * or a construction given CONSTRUCTION_SHARE of the time budget followed by a taboo search in the N6 neighborhood.
+ *
+ * The table comes from 3 s runs of each solver on the ft, la, abz, orb, swv, yn and ta instances and on generated
+ * flow shops and instances with log-normal durations :
+ *  - the branch and bound proves up to 60 tasks at once, and up to 300 tasks when the lower bound tends to be tight,
+ *    i.e. with many jobs per machine (la31) or widely spread durations, where the most loaded machine dominates.
+ *    This does not hold for flow shops, where it fails to close a 20x5 instance that the taboo search solves better,
+ *  - otherwise the taboo search gives the best results. Starting it from the shifting bottleneck is much better on
+ *    flow shops and slightly better on most other instances, except for the largest random ones where the gain
+ *    does not pay for the construction time (ta71).
+ */
+public class AutoSolver implements Solver {
+
+    /** Fraction of the time budget given to the construction of the initial solution */
+    private static final double CONSTRUCTION_SHARE = 0.1;
+
+    enum Construction { NONE, GREEDY, SHIFTING_BOTTLENECK }
+    enum Improvement { BRANCH_AND_BOUND, TABOO }
+
+    /** A row of the table : the solver used for the instances matching a condition on their features. */
+    static final class Profile {
+        final String name;
+        final Predicate<Features> condition;
+        final Construction construction;
+        final Improvement improvement;
+
+        Profile(String name, Predicate<Features> condition, Construction construction, Improvement improvement) {
+            this.name = name;
+            this.condition = condition;
+            this.construction = construction;
+            this.improvement = improvement;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    static final Profile[] PROFILES = {
+            new Profile("small", f -> f.numOps <= 60, Construction.NONE, Improvement.BRANCH_AND_BOUND),
+            new Profile("flowShop", f -> f.flowShopness >= 0.9, Construction.SHIFTING_BOTTLENECK, Improvement.TABOO),
+            new Profile("tight", f -> f.numOps <= 300 && (f.jobsPerMachine >= 3 || f.durationVariation >= 1),
+                    Construction.NONE, Improvement.BRANCH_AND_BOUND),
+            new Profile("large", f -> f.numOps >= 1000, Construction.GREEDY, Improvement.TABOO),
+            new Profile("default", f -> true, Construction.SHIFTING_BOTTLENECK, Improvement.TABOO),
+    };
+
+    /** Features of an instance, all computed in one pass over its tasks. */
+    static final class Features {
+        final int numJobs, numMachines, numOps;
+        final double jobsPerMachine;
+        /** Standard deviation of the durations relatively to their mean */
+        final double durationVariation;
+        /** For each pair of machines, the fraction of the jobs visiting them in the most frequent order, averaged
+         * over the pairs : 1 for a flow shop, about 0.5 for random machine orders */
+        final double flowShopness;
+
+        Features(Instance instance) {
+            numJobs = instance.numJobs;
+            numMachines = instance.numMachines;
+            numOps = numJobs * instance.numTasks;
+            jobsPerMachine = (double) numJobs / numMachines;
+
+            double sum = 0, sumSquares = 0;
+            // before[a * numMachines + b] : number of jobs visiting machine a before machine b
+            int[] before = new int[numMachines * numMachines];
+            boolean[] visited = new boolean[numMachines];
+            for(int j = 0 ; j < numJobs ; j++) {
+                Arrays.fill(visited, false);
+                for(int t = 0 ; t < instance.numTasks ; t++) {
+                    int d = instance.duration(j, t);
+                    sum += d;
+                    sumSquares += (double) d * d;
+                    int m = instance.machine(j, t);
+                    for(int other = 0 ; other < numMachines ; other++) {
+                        if(visited[other])
+                            before[other * numMachines + m]++;
+                    }
+                    visited[m] = true;
+                }
+            }
+            double mean = sum / numOps;
+            durationVariation = mean == 0 ? 0 : Math.sqrt(Math.max(0, sumSquares / numOps - mean * mean)) / mean;
+
+            long agreeing = 0, total = 0;
+            for(int a = 0 ; a < numMachines ; a++) {
+                for(int b = a + 1 ; b < numMachines ; b++) {
+                    agreeing += Math.max(before[a * numMachines + b], before[b * numMachines + a]);
+                    total += before[a * numMachines + b] + before[b * numMachines + a];
+                }
+            }
+            flowShopness = total == 0 ? 1 : (double) agreeing / total;
+        }
+    }
+
+    /** The profile used for an instance. */
+    static Profile choose(Instance instance) {
+        Features features = new Features(instance);
+        for(Profile profile : PROFILES) {
+            if(profile.condition.test(features))
+                return profile;
+        }
+        throw new IllegalStateException("No profile for instance");
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline) {
+        Profile profile = choose(instance);
+        if(profile.improvement == Improvement.BRANCH_AND_BOUND)
+            return new BranchAndBoundSolver().solve(instance, deadline);
+
+        ResourceOrder initial;
+        if(profile.construction == Construction.SHIFTING_BOTTLENECK) {
+            long start = System.currentTimeMillis();
+            long constructionDeadline = start + (long) ((deadline - start) * CONSTRUCTION_SHARE);
+            initial = new ResourceOrder(new ShiftingBottleneckSolver().solve(instance, constructionDeadline).schedule);
+        } else {
+            // the greedy solution is only complete if it ends before its deadline, it takes a few milliseconds
+            initial = new ResourceOrder(new GreedySolver(PriorityRules.EST_LRPT).solve(instance, deadline).schedule);
+        }
+        Result result = new TabooSolver(Integer.MAX_VALUE, 10).withNeighborhood(Neighborhood.N6).solve(initial, deadline);
+        // the taboo search proves nothing : the solution is only known to be optimal when it meets the lower bound
+        Result.ExitCause cause = result.schedule.makespan() == HeadsTails.lowerBound(instance)
+                ? Result.ExitCause.ProvedOptimal : Result.ExitCause.Timeout;
+        return new Result(instance, result.schedule, cause);
+    }
+}
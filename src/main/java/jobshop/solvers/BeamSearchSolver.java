@@ -0,0 +1,410 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.Result;
+import jobshop.Solver;
+import jobshop.encodings.PriorityRules;
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.Task;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/** Beam search over the schedules built task by task, as by GreedySolver.
+ *
+ * The children of a partial schedule are its schedules with the next task of one of the jobs added at its
+ * earliest start, provided it starts before the earliest end of the other next tasks : as in the Giffler and
+ * Thompson algorithm, only active schedules are built, and they include an optimal one. At each step the children
+ * of all the partial schedules of the beam are ranked by a lower bound of the makespan of their completions (the
+ * largest, over jobs and machines, of their current end plus their remaining duration), ties being broken by the
+ * value of the priority rule for the task just added, and the best `width` distinct ones are kept. The bound
+ * compares partial schedules whatever their parents, where the rule only compares the tasks that can be added to
+ * the same parent. When there are more children than `width`, only the CHILDREN_PER_STATE best ones of each parent
+ * for the rule are ranked : the bound alone favours the children delaying the critical jobs and machines the least,
+ * whatever they do to the others, and loses the guidance of the rule.
+ *
+ * A child is a (parent, task) pair until it is kept : only then is the state of its parent (next task, end of
+ * each job and machine, remaining load of each machine, all in a single array) copied and updated. The arrays of a
+ * beam are released once its children are built, the tasks of a schedule being found back through the parents.
+ * Children leading to the same state, e.g. tasks of two machines added in both orders, are recognized by a hash
+ * of the state updated with the task, the states themselves being compared when the hashes are equal.
+ *
+ * The search is repeated with a doubled width as long as time remains, the width of the last pass being reduced
+ * to what the remaining time allows. Within a pass, the width is halved whenever the remaining steps would not
+ * end before the deadline at the current pace. If no child was ever discarded, all active schedules were
+ * enumerated and the best one is optimal.
+ *
+ * Children are generated and states copied by `numThreads` threads, each one taking a slice of the beam.
+ */
+public class BeamSearchSolver implements Solver {
+
+    /** Minimum number of states per thread for a step to be run in parallel */
+    private static final int STATES_PER_THREAD = 16;
+    /** Number of children of a state, the best ones for the priority rule, competing for a beam that is too small */
+    static final int CHILDREN_PER_STATE = 2;
+
+    private final PriorityRules rule;
+    private final int numThreads;
+
+    public BeamSearchSolver() {
+        this(PriorityRules.EST_LRPT, Runtime.getRuntime().availableProcessors());
+    }
+
+    public BeamSearchSolver(PriorityRules rule, int numThreads) {
+        if(numThreads < 1)
+            throw new IllegalArgumentException("At least one thread is needed: " + numThreads);
+        this.rule = rule;
+        this.numThreads = numThreads;
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline) {
+        try (Workers workers = new Workers(numThreads, "beam expansions")) {
+            Search search = new Search(instance, workers);
+            int lowerBound = HeadsTails.lowerBound(instance);
+            State best = null;
+            boolean exhaustive = false;
+            int width = 1;
+            while(true) {
+                long start = System.currentTimeMillis();
+                State state = search.run(width, deadline);
+                if(best == null || state.bound < best.bound)
+                    best = state;
+                if(!search.pruned) {
+                    exhaustive = true;
+                    break;
+                }
+                long now = System.currentTimeMillis();
+                if(best.bound == lowerBound || deadline - now <= 1)
+                    break;
+                // the duration of a pass grows about linearly with the width
+                long next = Math.min(2L * width, width * (deadline - now) / Math.max(1, now - start));
+                if(next <= width)
+                    break;
+                width = (int) Math.min(next, Integer.MAX_VALUE);
+            }
+            Result.ExitCause cause = exhaustive || best.bound == lowerBound ? Result.ExitCause.ProvedOptimal : Result.ExitCause.Timeout;
+            return new Result(instance, search.toResourceOrder(best).toSchedule(), cause);
+        }
+    }
+
+    /** A partial schedule : the task added to its parent and, while it is in the beam, its state. */
+    private static final class State {
+        final State parent;
+        final int op;
+        /** Lower bound of the makespan of the schedules completing this one, the makespan of a complete schedule */
+        final int bound;
+        // nextTask[numJobs], jobEnd[numJobs], machineEnd[numMachines], load[numMachines], null once released
+        int[] data;
+        // largest end plus remaining duration of a job and of a machine, the job or machine reaching it and the second largest
+        int jobMax, jobArg, jobSecond, machineMax, machineArg, machineSecond;
+        // sum of mix(i, data[i]) over all entries but the loads, which follow from the next tasks
+        long hash;
+
+        State(State parent, int op, int bound) {
+            this.parent = parent;
+            this.op = op;
+            this.bound = bound;
+        }
+    }
+
+    /** A child not built yet. */
+    private static final class Candidate {
+        final State parent;
+        final int op;
+        final int start;
+        final int bound;
+        final long priority;
+        /** Hash of the state of the child */
+        final long hash;
+
+        Candidate(State parent, int op, int start, int bound, long priority, long hash) {
+            this.parent = parent;
+            this.op = op;
+            this.start = start;
+            this.bound = bound;
+            this.priority = priority;
+            this.hash = hash;
+        }
+    }
+
+    private static final Comparator<Candidate> BY_BOUND_AND_PRIORITY =
+            Comparator.<Candidate>comparingInt(c -> c.bound).thenComparingLong(c -> c.priority);
+    private static final Comparator<Candidate> BY_PRIORITY_AND_BOUND =
+            Comparator.<Candidate>comparingLong(c -> c.priority).thenComparingInt(c -> c.bound);
+
+    private final class Search {
+        final Instance instance;
+        final Workers workers;
+        final int numJobs, numTasks, numMachines, numOps;
+        final int[] duration, machine;
+        // duration of the job from each of its tasks (included)
+        final int[] remaining;
+        final int[] load;
+
+        /** True if the last pass discarded some children */
+        boolean pruned;
+
+        Search(Instance instance, Workers workers) {
+            this.instance = instance;
+            this.workers = workers;
+            numJobs = instance.numJobs;
+            numTasks = instance.numTasks;
+            numMachines = instance.numMachines;
+            numOps = numJobs * numTasks;
+            duration = new int[numOps];
+            machine = new int[numOps];
+            remaining = new int[numOps];
+            load = new int[numMachines];
+            for(int j = 0 ; j < numJobs ; j++) {
+                for(int t = numTasks - 1 ; t >= 0 ; t--) {
+                    int op = j * numTasks + t;
+                    duration[op] = instance.duration(j, t);
+                    machine[op] = instance.machine(j, t);
+                    remaining[op] = duration[op] + (t + 1 < numTasks ? remaining[op + 1] : 0);
+                    load[machine[op]] += duration[op];
+                }
+            }
+        }
+
+        /** Runs a beam search pass of the given width and returns the best complete schedule. */
+        State run(int width, long deadline) {
+            pruned = false;
+            State root = new State(null, -1, 0);
+            root.data = new int[2 * numJobs + 2 * numMachines];
+            System.arraycopy(load, 0, root.data, 2 * numJobs + numMachines, numMachines);
+            for(int i = 0 ; i < 2 * numJobs + numMachines ; i++)
+                root.hash += mix(i, 0);
+            summarize(root);
+            List<State> beam = new ArrayList<>();
+            beam.add(root);
+
+            long start = System.currentTimeMillis();
+            for(int step = 0 ; step < numOps ; step++) {
+                long now = System.currentTimeMillis();
+                if(step > 0 && width > 1 && now + (now - start) * (numOps - step) / step > deadline)
+                    width = Math.max(1, width / 2);
+
+                List<State> parents = beam;
+                List<List<Candidate>> children = new ArrayList<>();
+                int slices = slices(parents.size());
+                for(int s = 0 ; s < slices ; s++)
+                    children.add(new ArrayList<>());
+                forEachSlice(slices, s -> {
+                    for(int i = s * parents.size() / slices ; i < (s + 1) * parents.size() / slices ; i++)
+                        expand(parents.get(i), children.get(s));
+                });
+                List<Candidate> candidates = new ArrayList<>();
+                for(List<Candidate> slice : children)
+                    candidates.addAll(slice);
+                if(candidates.size() > width)
+                    candidates = bestOfEachParent(candidates);
+                candidates.sort(BY_BOUND_AND_PRIORITY);
+                // kept candidates by hash of their state
+                HashMap<Long, List<Candidate>> seen = new HashMap<>();
+                List<Candidate> kept = new ArrayList<>();
+                for(Candidate c : candidates) {
+                    if(kept.size() == width) {
+                        pruned = true;
+                        break;
+                    }
+                    List<Candidate> sameHash = seen.computeIfAbsent(c.hash, h -> new ArrayList<>(1));
+                    if(!containsState(sameHash, c)) {
+                        sameHash.add(c);
+                        kept.add(c);
+                    }
+                }
+
+                State[] next = new State[kept.size()];
+                int keptSlices = slices(kept.size());
+                forEachSlice(keptSlices, s -> {
+                    for(int i = s * kept.size() / keptSlices ; i < (s + 1) * kept.size() / keptSlices ; i++)
+                        next[i] = build(kept.get(i));
+                });
+                for(State parent : parents)
+                    parent.data = null;
+                beam = new ArrayList<>();
+                for(State state : next)
+                    beam.add(state);
+            }
+
+            State best = beam.get(0);
+            for(State state : beam) {
+                if(state.bound < best.bound)
+                    best = state;
+            }
+            return best;
+        }
+
+        /** Adds the children of a state to `children`, sorted by the priority rule : one for the next task of each
+         * unfinished job that can start before the end of all the others (Giffler and Thompson). */
+        void expand(State state, List<Candidate> children) {
+            int[] data = state.data;
+            int minEnd = Integer.MAX_VALUE;
+            for(int j = 0 ; j < numJobs ; j++) {
+                if(data[j] == numTasks)
+                    continue;
+                int op = j * numTasks + data[j];
+                minEnd = Math.min(minEnd, Math.max(data[numJobs + j], data[2 * numJobs + machine[op]]) + duration[op]);
+            }
+            int first = children.size();
+            for(int j = 0 ; j < numJobs ; j++) {
+                if(data[j] == numTasks)
+                    continue;
+                int op = j * numTasks + data[j];
+                int m = machine[op];
+                int start = Math.max(data[numJobs + j], data[2 * numJobs + m]);
+                // another task of machine m could be scheduled before this one without delaying it
+                if(start >= minEnd)
+                    continue;
+                int otherJobs = j == state.jobArg ? state.jobSecond : state.jobMax;
+                int otherMachines = m == state.machineArg ? state.machineSecond : state.machineMax;
+                // job j ends at best after its remaining tasks, machine m after its remaining load
+                int bound = Math.max(Math.max(otherJobs, otherMachines),
+                        Math.max(start + remaining[op], start + data[2 * numJobs + numMachines + m]));
+                int end = start + duration[op];
+                long hash = state.hash - mix(j, data[j]) + mix(j, data[j] + 1)
+                        - mix(numJobs + j, data[numJobs + j]) + mix(numJobs + j, end)
+                        - mix(2 * numJobs + m, data[2 * numJobs + m]) + mix(2 * numJobs + m, end);
+                children.add(new Candidate(state, op, start, bound, priority(op, start), hash));
+            }
+            children.subList(first, children.size()).sort(BY_PRIORITY_AND_BOUND);
+        }
+
+        /** The first CHILDREN_PER_STATE candidates of each parent, the candidates of a parent being consecutive. */
+        List<Candidate> bestOfEachParent(List<Candidate> candidates) {
+            List<Candidate> best = new ArrayList<>();
+            int count = 0;
+            for(int i = 0 ; i < candidates.size() ; i++) {
+                Candidate c = candidates.get(i);
+                count = i > 0 && candidates.get(i - 1).parent == c.parent ? count + 1 : 0;
+                if(count < CHILDREN_PER_STATE)
+                    best.add(c);
+                else
+                    pruned = true;
+            }
+            return best;
+        }
+
+        /** Value of the priority rule for a task starting at `start`, the smallest being the preferred one. */
+        long priority(int op, int start) {
+            switch(rule) {
+                case SPT: return duration[op];
+                case LPT: return -duration[op];
+                case SRPT: return remaining[op];
+                case LRPT: return -remaining[op];
+                case EST_SPT: return ((long) start << 32) + duration[op];
+                case EST_LPT: return ((long) start << 32) - duration[op];
+                case EST_SRPT: return ((long) start << 32) + remaining[op];
+                case EST_LRPT: return ((long) start << 32) - remaining[op];
+                default: throw new IllegalStateException("Unknown priority rule: " + rule);
+            }
+        }
+
+        /** Copies the state of the parent of a candidate and adds its task. */
+        State build(Candidate candidate) {
+            State state = new State(candidate.parent, candidate.op, candidate.bound);
+            int[] data = candidate.parent.data.clone();
+            int j = candidate.op / numTasks, m = machine[candidate.op];
+            int end = candidate.start + duration[candidate.op];
+            data[j]++;
+            data[numJobs + j] = end;
+            data[2 * numJobs + m] = end;
+            data[2 * numJobs + numMachines + m] -= duration[candidate.op];
+            state.data = data;
+            state.hash = candidate.hash;
+            summarize(state);
+            return state;
+        }
+
+        /** True if one of the candidates leads to the same state as `candidate`. */
+        boolean containsState(List<Candidate> candidates, Candidate candidate) {
+            for(Candidate other : candidates) {
+                boolean same = true;
+                // the loads follow from the next tasks
+                for(int i = 0 ; i < 2 * numJobs + numMachines && same ; i++)
+                    same = entry(other, i) == entry(candidate, i);
+                if(same)
+                    return true;
+            }
+            return false;
+        }
+
+        /** Entry i of the state of the child of a candidate, read from the state of its parent. */
+        int entry(Candidate candidate, int i) {
+            int j = candidate.op / numTasks, m = machine[candidate.op];
+            int[] data = candidate.parent.data;
+            if(i == j)
+                return data[j] + 1;
+            if(i == numJobs + j || i == 2 * numJobs + m)
+                return candidate.start + duration[candidate.op];
+            return data[i];
+        }
+
+        /** Hash of the value of an entry of the state of a schedule (SplitMix64 finalizer). */
+        long mix(int index, int value) {
+            long z = ((long) index << 32 | value) * 0x9E3779B97F4A7C15L;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            return z ^ (z >>> 31);
+        }
+
+        /** Computes the largest and second largest bounds of the jobs and machines of a state. */
+        void summarize(State state) {
+            int[] data = state.data;
+            state.jobMax = state.jobSecond = state.machineMax = state.machineSecond = 0;
+            state.jobArg = state.machineArg = -1;
+            for(int j = 0 ; j < numJobs ; j++) {
+                int value = data[numJobs + j] + (data[j] == numTasks ? 0 : remaining[j * numTasks + data[j]]);
+                if(value > state.jobMax) {
+                    state.jobSecond = state.jobMax;
+                    state.jobMax = value;
+                    state.jobArg = j;
+                } else if(value > state.jobSecond) {
+                    state.jobSecond = value;
+                }
+            }
+            for(int m = 0 ; m < numMachines ; m++) {
+                int value = data[2 * numJobs + m] + data[2 * numJobs + numMachines + m];
+                if(value > state.machineMax) {
+                    state.machineSecond = state.machineMax;
+                    state.machineMax = value;
+                    state.machineArg = m;
+                } else if(value > state.machineSecond) {
+                    state.machineSecond = value;
+                }
+            }
+        }
+
+        /** Number of slices a step over `size` states is split into. */
+        int slices(int size) {
+            return Math.max(1, Math.min(numThreads, size / STATES_PER_THREAD));
+        }
+
+        /** Runs `task` on slices 0 .. count-1, in parallel if there is more than one. */
+        void forEachSlice(int count, IntConsumer task) {
+            if(count == 1)
+                task.accept(0);
+            else
+                workers.forEach(count, task);
+        }
+
+        /** The resource order of a complete schedule, its tasks being appended to their machine in the order
+         * they were added. */
+        ResourceOrder toResourceOrder(State state) {
+            int[] ops = new int[numOps];
+            for(int i = numOps - 1 ; i >= 0 ; i--) {
+                ops[i] = state.op;
+                state = state.parent;
+            }
+            ResourceOrder order = new ResourceOrder(instance);
+            for(int op : ops) {
+                int m = machine[op];
+                order.tasksByMachine[m][order.nextFreeSlot[m]++] = new Task(op / numTasks, op % numTasks);
+            }
+            return order;
+        }
+    }
+}
@@ -0,0 +1,428 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.Result;
+import jobshop.Solver;
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.Task;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Exact branch and bound, for small and medium instances.
+ *
+ * A node is a partial selection : the order of some pairs of tasks on a machine is fixed. At each node :
+ *  - heads and tails are computed in the graph of the job precedences and of the fixed pairs,
+ *  - the node is pruned if the longest path or the preemptive one machine bound of a machine (see OneMachineProblem)
+ *    reaches the best known makespan,
+ *  - pairs are fixed by propagation : a pair is fixed when one of its orders would reach the best makespan,
+ *    and edge finding fixes a task before (or after) a whole set of tasks of its machine when any other position
+ *    would reach it. Heads and tails are updated and propagation repeated until nothing changes.
+ *  - the selection is completed by ordering each machine by increasing head, which respects the fixed pairs,
+ *    and the completed solution may improve the best makespan,
+ *  - the search branches on a pair of consecutive tasks of a critical block of that solution, not fixed yet :
+ *    the pair whose two orders give the largest smallest head/tail bound. Its tasks are swapped first (the only
+ *    way to shorten this critical path), then kept. If all pairs of the critical path are already fixed, the
+ *    longest path of the node is the makespan of the completed solution and it is closed.
+ *
+ * Subtrees are split across a fork join pool : a node forks its second child while the pool has few queued tasks,
+ * idle threads steal them. The best makespan is shared through an AtomicInteger read by all threads to prune.
+ * The initial upper bound is the shifting bottleneck solution, improved by a short taboo search in the N6
+ * neighborhood (at most INITIAL_SEARCH_MS and a tenth of the time budget).
+ *
+ * The result is ProvedOptimal when the whole tree was explored before the deadline.
+ */
+public class BranchAndBoundSolver implements Solver {
+
+    /** Maximum number of tasks queued in a thread before children are explored without forking */
+    private static final int SURPLUS_TASKS = 3;
+
+    /** Maximum duration of the taboo search giving the initial upper bound */
+    private static final long INITIAL_SEARCH_MS = 1000;
+
+    private final int numThreads;
+
+    public BranchAndBoundSolver() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public BranchAndBoundSolver(int numThreads) {
+        if(numThreads < 1)
+            throw new IllegalArgumentException("At least one thread is needed: " + numThreads);
+        this.numThreads = numThreads;
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline) {
+        ResourceOrder initial = new ResourceOrder(new ShiftingBottleneckSolver().solve(instance, deadline).schedule);
+        if(initial.makespan() > HeadsTails.lowerBound(instance)) {
+            long tabooEnd = System.currentTimeMillis() + Math.min(INITIAL_SEARCH_MS, (deadline - System.currentTimeMillis()) / 10);
+            initial = new ResourceOrder(new TabooSolver(Integer.MAX_VALUE, 10).withNeighborhood(Neighborhood.N6).solve(initial, tabooEnd).schedule);
+        }
+
+        Search search = new Search(instance, deadline, initial);
+        ForkJoinPool pool = new ForkJoinPool(numThreads);
+        try {
+            pool.invoke(new Node(search, new byte[instance.numMachines * instance.numJobs * instance.numJobs]));
+        } finally {
+            pool.shutdownNow();
+        }
+
+        ResourceOrder best = search.best();
+        if(search.timedOut)
+            return new Result(instance, best.toSchedule(), Result.ExitCause.Timeout);
+        return new Result(instance, best.toSchedule(), Result.ExitCause.ProvedOptimal);
+    }
+
+    /** State shared by all nodes : the instance, the best solution and the deadline. */
+    private static final class Search {
+        final Instance instance;
+        final long deadline;
+        final int numJobs;
+        final int[] duration;
+        final int[] machine;
+        // opOnMachine[m * numJobs + j] : operation of job j on machine m
+        final int[] opOnMachine;
+
+        /** Best makespan known, read by all threads to prune */
+        final AtomicInteger upperBound;
+        private int[] bestSequence;
+        volatile boolean timedOut;
+
+        final ThreadLocal<Scratch> scratch;
+
+        Search(Instance instance, long deadline, ResourceOrder initial) {
+            this.instance = instance;
+            this.deadline = deadline;
+            this.numJobs = instance.numJobs;
+            int numOps = instance.numJobs * instance.numTasks;
+            duration = new int[numOps];
+            machine = new int[numOps];
+            opOnMachine = new int[instance.numMachines * instance.numJobs];
+            for(int j = 0 ; j < instance.numJobs ; j++) {
+                for(int t = 0 ; t < instance.numTasks ; t++) {
+                    int op = j * instance.numTasks + t;
+                    duration[op] = instance.duration(j, t);
+                    machine[op] = instance.machine(j, t);
+                    opOnMachine[machine[op] * numJobs + j] = op;
+                }
+            }
+            HeadsTails graph = new HeadsTails(instance);
+            graph.compute(initial);
+            bestSequence = graph.machineSequence.clone();
+            upperBound = new AtomicInteger(graph.makespan);
+            scratch = ThreadLocal.withInitial(() -> new Scratch(this));
+        }
+
+        /** Records the machine sequences of a solution if its makespan improves the best one. */
+        synchronized void offer(int[] machineSequence, int makespan) {
+            if(makespan < upperBound.get()) {
+                bestSequence = machineSequence.clone();
+                upperBound.set(makespan);
+            }
+        }
+
+        synchronized ResourceOrder best() {
+            ResourceOrder order = new ResourceOrder(instance);
+            for(int m = 0 ; m < instance.numMachines ; m++) {
+                for(int i = 0 ; i < numJobs ; i++) {
+                    int op = bestSequence[m * numJobs + i];
+                    order.tasksByMachine[m][i] = new Task(op / instance.numTasks, op % instance.numTasks);
+                }
+                order.nextFreeSlot[m] = numJobs;
+            }
+            return order;
+        }
+
+        /** Index of the ordered pair of jobs (a, b) on machine m in a selection, whose numMachines * numJobs * numJobs
+         * entries are indexed by machine, then first job, then second job. */
+        int pair(int m, int a, int b) {
+            return (m * numJobs + a) * numJobs + b;
+        }
+    }
+
+    /** Arrays used to process a node, one instance per thread. */
+    private static final class Scratch {
+        final Search search;
+        final int[] head;
+        final int[] tail;
+        final int[] inDegree;
+        final int[] topological;
+        final OneMachineProblem problem;
+        final HeadsTails completion;
+        final int[] path;
+        final long[] keys;
+
+        Scratch(Search search) {
+            this.search = search;
+            int numOps = search.duration.length;
+            head = new int[numOps];
+            tail = new int[numOps];
+            inDegree = new int[numOps];
+            topological = new int[numOps];
+            problem = new OneMachineProblem(search.numJobs);
+            completion = new HeadsTails(search.instance);
+            path = new int[numOps];
+            keys = new long[search.numJobs];
+        }
+
+        /** Heads and tails of the graph of the selection, returns false if it has a cycle. */
+        boolean compute(byte[] selection) {
+            Instance instance = search.instance;
+            int numJobs = search.numJobs, numOps = head.length;
+            for(int op = 0 ; op < numOps ; op++) {
+                int m = search.machine[op], a = op / instance.numTasks;
+                int degree = op % instance.numTasks == 0 ? 0 : 1;
+                for(int b = 0 ; b < numJobs ; b++) {
+                    if(selection[search.pair(m, a, b)] < 0)
+                        degree++;
+                }
+                inDegree[op] = degree;
+                head[op] = 0;
+            }
+            int queued = 0;
+            for(int op = 0 ; op < numOps ; op++) {
+                if(inDegree[op] == 0)
+                    topological[queued++] = op;
+            }
+            for(int done = 0 ; done < queued ; done++) {
+                int op = topological[done];
+                int end = head[op] + search.duration[op];
+                int m = search.machine[op], a = op / instance.numTasks;
+                if(op % instance.numTasks != instance.numTasks - 1) {
+                    head[op + 1] = Math.max(head[op + 1], end);
+                    if(--inDegree[op + 1] == 0)
+                        topological[queued++] = op + 1;
+                }
+                for(int b = 0 ; b < numJobs ; b++) {
+                    if(selection[search.pair(m, a, b)] > 0) {
+                        int next = search.opOnMachine[m * numJobs + b];
+                        head[next] = Math.max(head[next], end);
+                        if(--inDegree[next] == 0)
+                            topological[queued++] = next;
+                    }
+                }
+            }
+            if(queued < numOps)
+                return false;
+            for(int i = numOps - 1 ; i >= 0 ; i--) {
+                int op = topological[i];
+                int m = search.machine[op], a = op / instance.numTasks;
+                int t = op % instance.numTasks == instance.numTasks - 1 ? 0 : search.duration[op + 1] + tail[op + 1];
+                for(int b = 0 ; b < numJobs ; b++) {
+                    if(selection[search.pair(m, a, b)] > 0) {
+                        int next = search.opOnMachine[m * numJobs + b];
+                        t = Math.max(t, search.duration[next] + tail[next]);
+                    }
+                }
+                tail[op] = t;
+            }
+            return true;
+        }
+
+        /** Fixes job a before job b on machine m, returns false if the opposite order is already fixed. */
+        private boolean fix(byte[] selection, int m, int a, int b) {
+            int ab = search.pair(m, a, b);
+            if(selection[ab] < 0)
+                return false;
+            selection[ab] = 1;
+            selection[search.pair(m, b, a)] = -1;
+            return true;
+        }
+
+        /** Bounds and propagation, repeated until no pair is fixed. Returns the lower bound of the node,
+         * or Integer.MAX_VALUE if it cannot contain a solution better than `ub`. */
+        int propagate(byte[] selection, int ub) {
+            Instance instance = search.instance;
+            int numJobs = search.numJobs;
+            int[] r = problem.r, p = problem.p, q = problem.q;
+            while(true) {
+                if(!compute(selection))
+                    return Integer.MAX_VALUE;
+                int bound = 0;
+                for(int op = 0 ; op < head.length ; op++)
+                    bound = Math.max(bound, head[op] + search.duration[op] + tail[op]);
+                if(bound >= ub)
+                    return Integer.MAX_VALUE;
+
+                boolean changed = false;
+                for(int m = 0 ; m < instance.numMachines ; m++) {
+                    // one machine problem of m, indexed by job
+                    for(int j = 0 ; j < numJobs ; j++) {
+                        int op = search.opOnMachine[m * numJobs + j];
+                        r[j] = head[op];
+                        p[j] = search.duration[op];
+                        q[j] = tail[op];
+                    }
+                    bound = Math.max(bound, problem.preemptiveBound(numJobs));
+                    if(bound >= ub)
+                        return Integer.MAX_VALUE;
+
+                    // pairs : an order reaching ub is forbidden
+                    for(int a = 0 ; a < numJobs ; a++) {
+                        for(int b = a + 1 ; b < numJobs ; b++) {
+                            if(selection[search.pair(m, a, b)] != 0)
+                                continue;
+                            boolean aFirst = r[a] + p[a] + p[b] + q[b] < ub;
+                            boolean bFirst = r[b] + p[b] + p[a] + q[a] < ub;
+                            if(!aFirst && !bFirst)
+                                return Integer.MAX_VALUE;
+                            if(!aFirst || !bFirst) {
+                                if(aFirst)
+                                    fix(selection, m, a, b);
+                                else
+                                    fix(selection, m, b, a);
+                                changed = true;
+                            }
+                        }
+                    }
+
+                    // edge finding on the sets of jobs with the largest tails (c after them) or heads (c before them)
+                    int after = edgeFinding(selection, m, ub, q, r, false);
+                    int before = after < 0 ? -1 : edgeFinding(selection, m, ub, r, q, true);
+                    if(before < 0)
+                        return Integer.MAX_VALUE;
+                    changed |= after > 0 || before > 0;
+                }
+                if(!changed)
+                    return bound;
+            }
+        }
+
+        /** Edge finding on machine m. With `before` false, for each job c, J grows with the jobs of largest `key`
+         * (the tails) : if min release of J and c + p(J) + p(c) + min tail of J reaches ub, c is after all of J.
+         * With `before` true, keys are the heads and c is fixed before all of J.
+         * Returns the number of pairs fixed, or -1 if a contradiction is found. */
+        private int edgeFinding(byte[] selection, int m, int ub, int[] key, int[] other, boolean before) {
+            int numJobs = search.numJobs;
+            int[] p = problem.p;
+            for(int j = 0 ; j < numJobs ; j++)
+                keys[j] = ((long) key[j] << 32) | j;
+            Arrays.sort(keys, 0, numJobs);
+            int fixed = 0;
+            for(int c = 0 ; c < numJobs ; c++) {
+                int minOther = other[c], sum = p[c], last = -1;
+                for(int k = numJobs - 1 ; k >= 0 ; k--) {
+                    int j = (int) keys[k];
+                    if(j == c)
+                        continue;
+                    minOther = Math.min(minOther, other[j]);
+                    sum += p[j];
+                    if(minOther + sum + key[j] >= ub)
+                        last = k;
+                }
+                // J : the jobs from the end of keys down to last
+                for(int k = numJobs - 1 ; last >= 0 && k >= last ; k--) {
+                    int j = (int) keys[k];
+                    if(j == c || selection[search.pair(m, c, j)] == (before ? 1 : -1))
+                        continue;
+                    if(!(before ? fix(selection, m, c, j) : fix(selection, m, j, c)))
+                        return -1;
+                    fixed++;
+                }
+            }
+            return fixed;
+        }
+
+        /** Completes the selection by ordering each machine by increasing head, evaluates it and offers it.
+         * Returns the unfixed pair of consecutive critical tasks to branch on, as the index pair(m, a, b) with a before b
+         * in the completed solution, or -1 if there is none. */
+        int complete(byte[] selection) {
+            Instance instance = search.instance;
+            int numJobs = search.numJobs;
+            for(int m = 0 ; m < instance.numMachines ; m++) {
+                for(int j = 0 ; j < numJobs ; j++) {
+                    int op = search.opOnMachine[m * numJobs + j];
+                    keys[j] = ((long) head[op] << 32) | op;
+                }
+                Arrays.sort(keys, 0, numJobs);
+                for(int i = 0 ; i < numJobs ; i++) {
+                    int op = (int) keys[i];
+                    completion.machineSequence[m * numJobs + i] = op;
+                    completion.position[op] = i;
+                }
+            }
+            if(!completion.compute()) {
+                // only possible with tasks of zero duration : branch on any unfixed pair
+                for(int pair = 0 ; pair < selection.length ; pair++) {
+                    if(selection[pair] == 0)
+                        return pair;
+                }
+                return -1;
+            }
+            search.offer(completion.machineSequence, completion.makespan);
+
+            // among the unfixed critical pairs, the one whose orders give the largest smallest bound
+            int length = completion.criticalPath(path);
+            int best = -1, bestBound = -1;
+            for(int i = 0 ; i + 1 < length ; i++) {
+                int u = path[i], v = path[i + 1];
+                int m = search.machine[u];
+                if(search.machine[v] != m)
+                    continue;
+                int pair = search.pair(m, u / instance.numTasks, v / instance.numTasks);
+                if(selection[pair] != 0)
+                    continue;
+                int pu = search.duration[u], pv = search.duration[v];
+                int bound = Math.min(head[u] + pu + pv + tail[v], head[v] + pv + pu + tail[u]);
+                if(bound > bestBound) {
+                    best = pair;
+                    bestBound = bound;
+                }
+            }
+            return best;
+        }
+    }
+
+    private static final class Node extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final Search search;
+        /** Order of each pair of tasks of a machine, at index search.pair(m, a, b) : 1 if the task of job a is
+         * before the task of job b, -1 if it is after, 0 if not fixed yet */
+        final byte[] selection;
+
+        Node(Search search, byte[] selection) {
+            this.search = search;
+            this.selection = selection;
+        }
+
+        @Override
+        protected void compute() {
+            if(search.timedOut)
+                return;
+            if(System.currentTimeMillis() >= search.deadline - 1) {
+                search.timedOut = true;
+                return;
+            }
+            Scratch scratch = search.scratch.get();
+            if(scratch.propagate(selection, search.upperBound.get()) == Integer.MAX_VALUE)
+                return;
+            int pair = scratch.complete(selection);
+            if(pair < 0)
+                return;
+
+            // a before b in the completed solution : try b before a first
+            int numJobs = search.numJobs;
+            int m = pair / (numJobs * numJobs), a = pair / numJobs % numJobs, b = pair % numJobs;
+            byte[] swapped = selection.clone();
+            swapped[search.pair(m, a, b)] = -1;
+            swapped[search.pair(m, b, a)] = 1;
+            byte[] kept = selection;
+            kept[search.pair(m, a, b)] = 1;
+            kept[search.pair(m, b, a)] = -1;
+
+            Node first = new Node(search, swapped), second = new Node(search, kept);
+            if(getSurplusQueuedTaskCount() < SURPLUS_TASKS) {
+                second.fork();
+                first.compute();
+                second.join();
+            } else {
+                first.compute();
+                second.compute();
+            }
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.Result;
+import jobshop.Solver;
+import jobshop.encodings.PriorityRules;
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.Task;
+import jobshop.encodings.ZobristHash;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/** Several taboo searches running in parallel and sharing their best solutions through an ElitePool.
+ *
+ * Each walker runs rounds of taboo search in the N6 neighborhood, with its own taboo tenure, and offers the best
+ * solution of each round to the pool. Rounds last `roundMillis` milliseconds, or by default a ROUNDS-th of the time
+ * budget (at least MIN_ROUND_MILLIS), so that solutions are exchanged whatever the timeout. The first round starts from the greedy EST_LRPT solution, the following ones
+ * start either from a random elite or from a solution found by path relinking between two random elites.
+ * The pool is lock-free, so walkers never wait for each other.
+ */
+public class CooperativeTabooSolver implements Solver {
+
+    /** Taboo tenures of the walkers, walker w uses TENURES[w % TENURES.length] */
+    private static final int[] TENURES = {10, 6, 14, 8, 12, 5, 16, 20};
+
+    /** Number of random swaps applied to an elite before restarting from it */
+    private static final int PERTURBATION_SWAPS = 5;
+
+    /** Number of rounds of each walker when the round duration is derived from the time budget */
+    private static final int ROUNDS = 10;
+    /** Shortest round when the round duration is derived from the time budget */
+    private static final long MIN_ROUND_MILLIS = 20;
+
+    private final int numWalkers;
+    private final int poolSize;
+    /** Duration of a round, 0 to derive it from the time budget */
+    private final long roundMillis;
+    private final long seed;
+
+    /** Walkers exchanging their solutions ROUNDS times during the time budget. */
+    public CooperativeTabooSolver(int numWalkers) {
+        this(numWalkers, 10, 0, 0);
+    }
+
+    /** Walkers exchanging their solutions every `roundMillis` milliseconds, or ROUNDS times during the time budget
+     * if `roundMillis` is 0. */
+    public CooperativeTabooSolver(int numWalkers, int poolSize, long roundMillis, long seed) {
+        if(numWalkers < 1)
+            throw new IllegalArgumentException("At least one walker is needed: " + numWalkers);
+        if(roundMillis < 0)
+            throw new IllegalArgumentException("Round duration must not be negative: " + roundMillis);
+        this.numWalkers = numWalkers;
+        this.poolSize = poolSize;
+        this.roundMillis = roundMillis;
+        this.seed = seed;
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline) {
+        ElitePool pool = new ElitePool(poolSize);
+        run(instance, pool, deadline);
+        return new Result(instance, pool.best().order.toSchedule(), Result.ExitCause.Timeout);
+    }
+
+    /** Runs the walkers from the greedy solution until the deadline, sharing their solutions in `pool`.
+     * Returns the number of rounds completed by all the walkers. */
+    int run(Instance instance, ElitePool pool, long deadline) {
+        ResourceOrder greedy = new ResourceOrder(new GreedySolver(PriorityRules.EST_LRPT).solve(instance, deadline).schedule);
+        pool.offer(greedy, greedy.makespan(), new ZobristHash(instance).hash(greedy));
+        long round = roundMillis(roundMillis, deadline - System.currentTimeMillis());
+
+        SplittableRandom master = new SplittableRandom(seed);
+        List<Walker> walkers = new ArrayList<>();
+        for(int w = 0 ; w < numWalkers ; w++)
+            walkers.add(new Walker(instance, pool, master.split(), TENURES[w % TENURES.length]));
+        try (Workers workers = new Workers(numWalkers, "taboo walkers")) {
+            int rounds = 0;
+            for(int walkerRounds : workers.map(numWalkers, w -> walkers.get(w).run(greedy.copy(), round, deadline)))
+                rounds += walkerRounds;
+            return rounds;
+        }
+    }
+
+    /** Duration of the rounds for a time budget of `budgetMillis`, given the configured duration (0 for the default). */
+    static long roundMillis(long roundMillis, long budgetMillis) {
+        return roundMillis > 0 ? roundMillis : Math.max(MIN_ROUND_MILLIS, budgetMillis / ROUNDS);
+    }
+
+    /** A taboo search restarted at each round from the pool. */
+    private final class Walker {
+        final ElitePool pool;
+        final SplittableRandom random;
+        final TabooSolver taboo;
+        // all walkers use the same keys, so that they agree on the hash of a solution
+        final ZobristHash zobrist;
+
+        Walker(Instance instance, ElitePool pool, SplittableRandom random, int tenure) {
+            this.pool = pool;
+            this.random = random;
+            this.taboo = new TabooSolver(Integer.MAX_VALUE, tenure).withNeighborhood(Neighborhood.N6);
+            this.zobrist = new ZobristHash(instance);
+        }
+
+        /** Runs rounds of `roundMillis` milliseconds until the deadline, returns the number of rounds completed. */
+        int run(ResourceOrder start, long roundMillis, long deadline) {
+            int rounds = 0;
+            while(deadline - System.currentTimeMillis() > 1) {
+                long roundEnd = Math.min(deadline, System.currentTimeMillis() + roundMillis);
+                ResourceOrder best = new ResourceOrder(taboo.solve(start, roundEnd).schedule);
+                pool.offer(best, best.makespan(), zobrist.hash(best));
+                rounds++;
+                if(deadline - System.currentTimeMillis() <= 1)
+                    break;
+
+                ElitePool.Elite a = pool.sample(random);
+                ElitePool.Elite b = pool.sample(random);
+                if(a != b && random.nextBoolean()) {
+                    start = relink(a.order.copy(), b.order, deadline);
+                } else {
+                    // the taboo search is deterministic, the elite is perturbed to explore another path
+                    start = a.order.copy();
+                    perturb(start, random);
+                }
+            }
+            return rounds;
+        }
+    }
+
+    /** Applies PERTURBATION_SWAPS random swaps of adjacent tasks on a machine, skipping those creating a cycle. */
+    static void perturb(ResourceOrder order, SplittableRandom random) {
+        Instance instance = order.instance;
+        for(int k = 0 ; k < PERTURBATION_SWAPS ; k++) {
+            Task[] seq = order.tasksByMachine[random.nextInt(instance.numMachines)];
+            int i = random.nextInt(instance.numJobs - 1);
+            swap(seq, i, i + 1);
+            if(order.makespan() == Integer.MAX_VALUE)
+                swap(seq, i, i + 1);
+        }
+    }
+
+    /** Path relinking from `from` towards `to` : `from` is transformed into `to` by a sequence of swaps,
+     * each one placing on some machine the task `to` has at the first position where the two orders differ.
+     * At each step the best feasible swap is applied and the best intermediate solution at least a quarter of
+     * the way from both ends is returned (`from` itself if no such solution exists). The walk stops early at the
+     * deadline, each step costing a decoding per machine.
+     * `from` is modified, `to` is only read. */
+    static ResourceOrder relink(ResourceOrder from, ResourceOrder to, long deadline) {
+        Instance instance = from.instance;
+        int distance = distance(from, to);
+        ResourceOrder best = from.copy();
+        int bestMakespan = Integer.MAX_VALUE;
+
+        for(int step = 1 ; distance > 1 && deadline - System.currentTimeMillis() > 1 ; step++) {
+            int bestMachine = -1, bestI = -1, bestJ = -1;
+            int stepMakespan = Integer.MAX_VALUE;
+            for(int m = 0 ; m < instance.numMachines ; m++) {
+                Task[] seq = from.tasksByMachine[m];
+                int i = 0;
+                while(i < instance.numJobs && seq[i].equals(to.tasksByMachine[m][i]))
+                    i++;
+                if(i == instance.numJobs)
+                    continue;
+                int j = i + 1;
+                while(!seq[j].equals(to.tasksByMachine[m][i]))
+                    j++;
+                swap(seq, i, j);
+                int makespan = from.makespan(stepMakespan);
+                if(makespan < stepMakespan) {
+                    stepMakespan = makespan;
+                    bestMachine = m;
+                    bestI = i;
+                    bestJ = j;
+                }
+                swap(seq, i, j);
+            }
+            if(bestMachine < 0)
+                break; // all swaps create a cycle
+            Task[] seq = from.tasksByMachine[bestMachine];
+            distance -= (seq[bestI].equals(to.tasksByMachine[bestMachine][bestJ]) ? 2 : 1);
+            swap(seq, bestI, bestJ);
+            if(step >= distance / 3 && distance >= step / 3 && stepMakespan < bestMakespan) {
+                // at least a quarter of the way from both ends
+                best = from.copy();
+                bestMakespan = stepMakespan;
+            }
+        }
+        return best;
+    }
+
+    /** Number of positions at which two resource orders of the same instance differ. */
+    static int distance(ResourceOrder a, ResourceOrder b) {
+        int distance = 0;
+        for(int m = 0 ; m < a.instance.numMachines ; m++) {
+            for(int i = 0 ; i < a.instance.numJobs ; i++) {
+                if(!a.tasksByMachine[m][i].equals(b.tasksByMachine[m][i]))
+                    distance++;
+            }
+        }
+        return distance;
+    }
+
+    private static void swap(Task[] seq, int i, int j) {
+        Task tmp = seq[i];
+        seq[i] = seq[j];
+        seq[j] = tmp;
+    }
+}
@@ -2,157 +2,129 @@ package jobshop.solvers;
 
 import jobshop.Instance;
 import jobshop.Result;
+import jobshop.SolutionStore;
 import jobshop.Solver;
 import jobshop.encodings.PriorityRules;
 import jobshop.encodings.ResourceOrder;
-import jobshop.encodings.Task;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 public class DescentSolver implements Solver {
 
-    /** A block represents a subsequence of the critical path such that all tasks in it execute on the same machine.
-     * This class identifies a block in a ResourceOrder representation.
-     *
-     * Consider the solution in ResourceOrder representation
-     * machine 0 : (0,1) (1,2) (2,2)
-     * machine 1 : (0,2) (2,1) (1,1)
-     * machine 2 : ...
-     *
-     * The block with : machine = 1, firstTask= 0 and lastTask = 1
-     * Represent the task sequence : [(0,2) (2,1)]
-     *
-     * */
-    static class Block {
-        /** machine on which the block is identified */
-        final int machine;
-        /** index of the first task of the block */
-        final int firstTask;
-        /** index of the last task of the block */
-        final int lastTask;
-
-        Block(int machine, int firstTask, int lastTask) {
-            this.machine = machine;
-            this.firstTask = firstTask;
-            this.lastTask = lastTask;
-        }
-    }
+    /** If not null, the search starts from the stored solution when it is better than the greedy one
+     * and the result is offered to the store. */
+    private final SolutionStore store;
 
-    /**
-     * Represents a swap of two tasks on the same machine in a ResourceOrder encoding.
-     *
-     * Consider the solution in ResourceOrder representation
-     * machine 0 : (0,1) (1,2) (2,2)
-     * machine 1 : (0,2) (2,1) (1,1)
-     * machine 2 : ...
-     *
-     * The swap with : machine = 1, t1= 0 and t2 = 1
-     * Represent inversion of the two tasks : (0,2) and (2,1)
-     * Applying this swap on the above resource order should result in the following one :
-     * machine 0 : (0,1) (1,2) (2,2)
-     * machine 1 : (2,1) (0,2) (1,1)
-     * machine 2 : ...
-     */
-    static class Swap {
-        // machine on which to perform the swap
-        final int machine;
-        // index of one task to be swapped
-        final int t1;
-        // index of the other task to be swapped
-        final int t2;
-
-        Swap(int machine, int t1, int t2) {
-            this.machine = machine;
-            this.t1 = t1;
-            this.t2 = t2;
-        }
+    private final Neighborhood neighborhood;
 
-        /** Apply this swap on the given resource order, transforming it into a new solution. */
-        void applyOn(ResourceOrder order) {
-            Task task1 = order.tasksByMachine[machine][t1];
-            Task task2 = order.tasksByMachine[machine][t2];
-            order.tasksByMachine[machine][t1] = task2;
-            order.tasksByMachine[machine][t2] = task1;
-        }
+    public DescentSolver() {
+        this(null);
+    }
 
-        @Override
-        public String toString() {
-            return "Swap(m = " + this.machine + "; t1 = " + this.t1 + "; t2 = " + this.t2 + ")";
-        }
+    public DescentSolver(SolutionStore store) {
+        this(store, Neighborhood.SWAP);
     }
 
+    private DescentSolver(SolutionStore store, Neighborhood neighborhood) {
+        this.store = store;
+        this.neighborhood = neighborhood;
+    }
+
+    /** Same solver, exploring the given neighborhood.
+     * With N6, moves are tried by increasing estimate and the first one improving the makespan is applied. */
+    public DescentSolver withNeighborhood(Neighborhood neighborhood) {
+        return new DescentSolver(store, neighborhood);
+    }
 
     @Override
     public Result solve(Instance instance, long deadline) {
         Solver greedy = new GreedySolver(PriorityRules.EST_LRPT);
-        ResourceOrder order = new ResourceOrder(greedy.solve(instance, deadline).schedule);
+        ResourceOrder initial = new ResourceOrder(greedy.solve(instance, deadline).schedule);
+        if(store == null)
+            return solve(initial, deadline);
+
+        Result result = solve(store.warmStart(initial), deadline);
+        store.offerOrWarn(new ResourceOrder(result.schedule));
+        return result;
+    }
 
-        ResourceOrder orderTest;
-        int testedMakespan, bestMakespan = order.toSchedule().makespan();
+    /** Runs the descent from the given (complete and feasible) solution, which is left unchanged. */
+    public Result solve(ResourceOrder initial, long deadline) {
+        if (neighborhood == Neighborhood.N6)
+            return solveN6(initial, deadline);
+        Instance instance = initial.instance;
+        IncrementalHeadsTails graph = new IncrementalHeadsTails(instance);
+        graph.compute(initial);
+        int[] path = new int[instance.numJobs * instance.numTasks];
+        int[] arcs = new int[path.length];
 
         boolean amelioration = true;
         while (amelioration &&  (deadline - System.currentTimeMillis() > 1)) {
             amelioration = false;
-            for (Block block : blocksOfCriticalPath(order)) {
-                for (Swap swap : neighbors(block)) {
-                    orderTest = order.copy();
-                    swap.applyOn(orderTest);
-                    testedMakespan = orderTest.toSchedule().makespan();
-                    if (testedMakespan < bestMakespan) {
-                        order = orderTest.copy();
-                        bestMakespan = testedMakespan;
-                        amelioration = true; // s'il n'en trouve pas, on ne passe pas ici i.e. on reste à false : on sort.
-                    }
+            // swaps of the first two and of the last two tasks of each critical block (Nowicki and Smutnicki),
+            // the first one improving the makespan is kept
+            int numArcs = graph.criticalArcs(path, arcs);
+            for (int a = 0; a < numArcs && !amelioration; a++) {
+                boolean firstOfBlock = a == 0 || arcs[a - 1] != arcs[a] - 1;
+                boolean lastOfBlock = a == numArcs - 1 || arcs[a + 1] != arcs[a] + 1;
+                if (!firstOfBlock && !lastOfBlock) {
+                    continue;
+                }
+                int u = path[arcs[a]], v = path[arcs[a] + 1];
+                int bestMakespan = graph.makespan;
+                if (graph.swapEstimate(u, v) >= bestMakespan) {
+                    continue;
+                }
+                graph.swapAndUpdate(u, v);
+                if (graph.makespan < bestMakespan) {
+                    amelioration = true;
+                } else {
+                    graph.swapAndUpdate(v, u);
                 }
             }
         }
-        if (deadline - System.currentTimeMillis() < 1) {
-            return new Result(instance, order.toSchedule(), Result.ExitCause.Timeout);
-        }else {
-            return new Result(instance, order.toSchedule(), Result.ExitCause.ProvedOptimal);
-        }
+        return result(graph, deadline);
     }
 
-    private List<Block> blocksOfCriticalPath(ResourceOrder order) {
-        List<Block> blocklist = new ArrayList<>();
-        List<Task> criticalPath = order.toSchedule().criticalPath();
-        int first_task, jobPointeur, criticalPathPointer ;
-        for (int machine=0; machine <order.toSchedule().pb.numMachines;machine++) {
-            jobPointeur=0;
-            while (jobPointeur < (order.toSchedule().pb.numJobs-1)) {
-                if (criticalPath.contains(order.tasksByMachine[machine][jobPointeur])) {
-                    criticalPathPointer= criticalPath.indexOf(order.tasksByMachine[machine][jobPointeur]);
-                    if(machine==order.toSchedule().pb.machine(criticalPath.get(criticalPathPointer+1))) {
-                        first_task = jobPointeur;
-                        while (criticalPathPointer<(criticalPath.size()-1) && machine==order.toSchedule().pb.machine(criticalPath.get(criticalPathPointer + 1))) {
-                            criticalPathPointer++;
-                            jobPointeur++;
-                        }
-                        blocklist.add(new Block(machine, first_task, jobPointeur));
-                    }
+    private Result solveN6(ResourceOrder initial, long deadline) {
+        Instance instance = initial.instance;
+        IncrementalHeadsTails graph = new IncrementalHeadsTails(instance);
+        N6Neighborhood moves = new N6Neighborhood(graph);
+        graph.compute(initial);
+        // (estimate, move) pairs packed in a long, sorted to try the most promising moves first
+        long[] sorted = new long[moves.estimate.length];
+
+        boolean amelioration = true;
+        while (amelioration && (deadline - System.currentTimeMillis() > 1)) {
+            amelioration = false;
+            int bestMakespan = graph.makespan;
+            int size = moves.generate();
+            for (int i = 0; i < size; i++) {
+                sorted[i] = ((long) moves.estimate[i] << 32) | i;
+            }
+            Arrays.sort(sorted, 0, size);
+            // the estimate is not a lower bound, each move is applied to read its makespan and undone
+            for (int i = 0; i < size && !amelioration; i++) {
+                int move = (int) sorted[i];
+                int op = moves.moved[move];
+                graph.moveAndUpdate(op, moves.to[move]);
+                if (graph.makespan < bestMakespan) {
+                    amelioration = true;
+                } else {
+                    graph.moveAndUpdate(op, moves.from[move]);
                 }
-                jobPointeur++;
             }
         }
-        return blocklist;
+        return result(graph, deadline);
     }
 
-
-
-    /** For a given block, return the possible swaps for the Nowicki and Smutnicki neighborhood */
-    private List<Swap> neighbors(Block block) {
-        List<Swap> swapList = new ArrayList<>();
-        int machine = block.machine;
-        int firstTask = block.firstTask, lastTask = block.lastTask;
-        int secondTask = firstTask +1, beforelastTask = lastTask -1; //On considère que les Taches sont dans l'ordre
-        if (secondTask == lastTask){
-            swapList.add(new Swap(machine,firstTask,lastTask));
+    private static Result result(HeadsTails graph, long deadline) {
+        ResourceOrder order = new ResourceOrder(graph.instance);
+        graph.writeTo(order);
+        if (deadline - System.currentTimeMillis() <= 1) {
+            return new Result(graph.instance, order.toSchedule(), Result.ExitCause.Timeout);
         }else {
-            swapList.add(new Swap(machine, firstTask, secondTask));
-            swapList.add(new Swap(machine, beforelastTask, lastTask));
+            return new Result(graph.instance, order.toSchedule(), Result.ExitCause.ProvedOptimal);
         }
-        return swapList;
     }
-
-}
\ No newline at end of file
+}
@@ -0,0 +1,86 @@
+package jobshop.solvers;
+
+import jobshop.encodings.ResourceOrder;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/** Bounded pool of the best distinct solutions found by concurrent searches.
+ *
+ * Each slot holds an immutable Elite and is only updated by compare-and-set, so threads offering and sampling
+ * solutions never wait for each other. A solution is rejected if its hash is already in the pool or if it is not
+ * better than the worst elite, which it replaces otherwise. Two threads offering the same solution at the same time
+ * may both insert it : duplicates are rare and only waste a slot until they are replaced.
+ */
+class ElitePool {
+
+    /** A solution of the pool, never modified once published.
+     * The order is shared between threads and must be copied before being evaluated or modified. */
+    static final class Elite {
+        final ResourceOrder order;
+        final int makespan;
+        final long hash;
+
+        Elite(ResourceOrder order, int makespan, long hash) {
+            this.order = order;
+            this.makespan = makespan;
+            this.hash = hash;
+        }
+    }
+
+    private final AtomicReferenceArray<Elite> slots;
+
+    ElitePool(int capacity) {
+        if(capacity < 1)
+            throw new IllegalArgumentException("Pool capacity must be positive: " + capacity);
+        slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /** Inserts a copy of `order` if it improves the pool, returns true if it was inserted. */
+    boolean offer(ResourceOrder order, int makespan, long hash) {
+        Elite elite = null;
+        while(true) {
+            // worst slot, empty slots first
+            int worst = -1;
+            Elite worstElite = null;
+            for(int i = 0 ; i < slots.length() ; i++) {
+                Elite e = slots.get(i);
+                if(e != null && e.hash == hash)
+                    return false;
+                if(worst < 0 || (worstElite != null && (e == null || e.makespan > worstElite.makespan))) {
+                    worst = i;
+                    worstElite = e;
+                }
+            }
+            if(worstElite != null && makespan >= worstElite.makespan)
+                return false;
+            if(elite == null)
+                elite = new Elite(order.copy(), makespan, hash);
+            // fails if another thread replaced the worst elite in between, the pool is scanned again
+            if(slots.compareAndSet(worst, worstElite, elite))
+                return true;
+        }
+    }
+
+    /** A random elite, or null if the pool is empty. */
+    Elite sample(SplittableRandom random) {
+        int start = random.nextInt(slots.length());
+        for(int i = 0 ; i < slots.length() ; i++) {
+            Elite e = slots.get((start + i) % slots.length());
+            if(e != null)
+                return e;
+        }
+        return null;
+    }
+
+    /** Best elite, or null if the pool is empty. */
+    Elite best() {
+        Elite best = null;
+        for(int i = 0 ; i < slots.length() ; i++) {
+            Elite e = slots.get(i);
+            if(e != null && (best == null || e.makespan < best.makespan))
+                best = e;
+        }
+        return best;
+    }
+}
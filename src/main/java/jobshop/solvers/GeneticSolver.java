@@ -0,0 +1,249 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.Result;
+import jobshop.Solver;
+import jobshop.encodings.BatchJobNumbersEvaluator;
+import jobshop.encodings.JobNumbers;
+import jobshop.encodings.PriorityRules;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/** Genetic algorithm on the JobNumbers encoding.
+ *
+ * The initial population holds the greedy solutions of all priority rules and random sequences. At each generation,
+ * as many offspring as individuals are produced by job-order crossover (JOX) of two parents chosen by binary
+ * tournament, followed by a mutation with probability MUTATION_RATE. Parents and offspring are then merged and the
+ * best distinct individuals form the next generation.
+ *
+ * Job-order crossover : a random subset of the jobs is chosen, the child keeps the positions of these jobs in the
+ * first parent and the remaining positions are filled with the other jobs in the order of the second parent.
+ * With parents [0 1 1 0] and [1 1 0 0] and the subset {0} the child is [0 1 1 0] : the 0s at positions 0 and 3
+ * come from the first parent, positions 1 and 2 take the 1s of the second parent in order.
+ * Each job keeps numTasks occurrences, so children are always valid sequences.
+ *
+ * Offspring are produced and evaluated by `numThreads` workers, each one with its own random generator split from
+ * the seed and its own batch evaluator : no Schedule is built before the end of the search.
+ */
+public class GeneticSolver implements Solver {
+
+    private static final double MUTATION_RATE = 0.3;
+
+    private final int populationSize;
+    private final long seed;
+    private final int numThreads;
+
+    public GeneticSolver() {
+        this(100, 0, Runtime.getRuntime().availableProcessors());
+    }
+
+    public GeneticSolver(int populationSize, long seed, int numThreads) {
+        if(populationSize < 2)
+            throw new IllegalArgumentException("Population must hold at least two individuals: " + populationSize);
+        if(numThreads < 1)
+            throw new IllegalArgumentException("At least one thread is needed: " + numThreads);
+        this.populationSize = populationSize;
+        this.seed = seed;
+        this.numThreads = numThreads;
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline) {
+        int length = instance.numJobs * instance.numTasks;
+        SplittableRandom master = new SplittableRandom(seed);
+
+        // parents and offspring, each individual occupying `length` consecutive positions
+        int[] population = new int[populationSize * length];
+        int[] fitness = new int[populationSize];
+        int[] offspring = new int[populationSize * length];
+        int[] offspringFitness = new int[populationSize];
+        initialPopulation(instance, deadline, master.split(), population, fitness);
+
+        // offspring [from[w], from[w+1]) are produced by worker w
+        int workers = Math.min(numThreads, populationSize);
+        int[] from = new int[workers + 1];
+        for(int w = 0 ; w <= workers ; w++)
+            from[w] = w * populationSize / workers;
+        List<Breeder> breeders = new ArrayList<>();
+        for(int w = 0 ; w < workers ; w++)
+            breeders.add(new Breeder(instance, master.split(), from[w + 1] - from[w]));
+
+        try (Workers pool = new Workers(workers, "genetic workers")) {
+            while(deadline - System.currentTimeMillis() > 1) {
+                pool.forEach(workers, w -> breeders.get(w).breed(population, fitness, offspring, offspringFitness, from[w]));
+                select(length, population, fitness, offspring, offspringFitness);
+            }
+        }
+
+        // the population is sorted by makespan, the first individual is the best one
+        JobNumbers best = new JobNumbers(instance);
+        System.arraycopy(population, 0, best.jobs, 0, length);
+        best.nextToSet = length;
+        return new Result(instance, best.toSchedule(), Result.ExitCause.Timeout);
+    }
+
+    /** Greedy solutions of all priority rules, then random sequences. */
+    private void initialPopulation(Instance instance, long deadline, SplittableRandom random, int[] population, int[] fitness) {
+        int length = instance.numJobs * instance.numTasks;
+        PriorityRules[] rules = PriorityRules.values();
+        JobNumbers sol = new JobNumbers(instance);
+        for(int i = 0 ; i < populationSize ; i++) {
+            if(i < rules.length) {
+                sol = new JobNumbers(new GreedySolver(rules[i]).solve(instance, deadline).schedule);
+            } else {
+                for(int p = 0 ; p < length ; p++)
+                    sol.jobs[p] = p % instance.numJobs;
+                shuffle(sol.jobs, 0, length, random);
+            }
+            System.arraycopy(sol.jobs, 0, population, i * length, length);
+            fitness[i] = sol.makespan();
+        }
+    }
+
+    /** Keeps the best distinct individuals among parents and offspring in `population`, sorted by makespan.
+     * Duplicates are only kept if there are not enough distinct individuals. */
+    void select(int length, int[] population, int[] fitness, int[] offspring, int[] offspringFitness) {
+        // (makespan, candidate) pairs packed in a long, candidates populationSize and above are offspring
+        long[] candidates = new long[2 * populationSize];
+        for(int i = 0 ; i < populationSize ; i++) {
+            candidates[i] = ((long) fitness[i] << 32) | i;
+            candidates[populationSize + i] = ((long) offspringFitness[i] << 32) | (populationSize + i);
+        }
+        Arrays.sort(candidates);
+
+        int[] next = new int[populationSize * length];
+        int[] nextFitness = new int[populationSize];
+        boolean[] taken = new boolean[candidates.length];
+        int size = 0;
+        for(int c = 0 ; c < candidates.length && size < populationSize ; c++) {
+            int candidate = (int) candidates[c];
+            int makespan = (int) (candidates[c] >>> 32);
+            int[] source = candidate < populationSize ? population : offspring;
+            int offset = (candidate % populationSize) * length;
+            // duplicates have the same makespan : only compare with the kept individuals of this makespan
+            boolean duplicate = false;
+            for(int k = size - 1 ; k >= 0 && nextFitness[k] == makespan && !duplicate ; k--)
+                duplicate = rangeEquals(source, offset, next, k * length, length);
+            if(!duplicate) {
+                System.arraycopy(source, offset, next, size * length, length);
+                nextFitness[size++] = makespan;
+                taken[c] = true;
+            }
+        }
+        for(int c = 0 ; c < candidates.length && size < populationSize ; c++) {
+            if(!taken[c]) {
+                int candidate = (int) candidates[c];
+                int[] source = candidate < populationSize ? population : offspring;
+                System.arraycopy(source, (candidate % populationSize) * length, next, size * length, length);
+                nextFitness[size++] = (int) (candidates[c] >>> 32);
+            }
+        }
+        System.arraycopy(next, 0, population, 0, next.length);
+        System.arraycopy(nextFitness, 0, fitness, 0, populationSize);
+    }
+
+    /** Job-order crossover of the individuals of `length` positions at offsets `first` and `second` of the
+     * population into `child` : the jobs of the subset keep their positions in the first one, the other positions
+     * take the other jobs in the order of the second one. */
+    static void crossover(int[] population, int first, int second, int length, boolean[] inSubset, int[] child) {
+        int q = second;
+        for(int i = 0 ; i < length ; i++) {
+            int job = population[first + i];
+            if(inSubset[job]) {
+                child[i] = job;
+            } else {
+                while(inSubset[population[q]])
+                    q++;
+                child[i] = population[q++];
+            }
+        }
+    }
+
+    private static boolean rangeEquals(int[] a, int aFrom, int[] b, int bFrom, int length) {
+        for(int i = 0 ; i < length ; i++) {
+            if(a[aFrom + i] != b[bFrom + i])
+                return false;
+        }
+        return true;
+    }
+
+    private static void shuffle(int[] array, int from, int to, SplittableRandom random) {
+        for(int i = to - 1 ; i > from ; i--) {
+            int j = from + random.nextInt(i - from + 1);
+            int tmp = array[i];
+            array[i] = array[j];
+            array[j] = tmp;
+        }
+    }
+
+    /** Produces and evaluates a fixed number of offspring per generation, with its own scratch state. */
+    private final class Breeder {
+        final SplittableRandom random;
+        final int count;
+        final int length;
+        final BatchJobNumbersEvaluator batch;
+        final int[] child;
+        final boolean[] inSubset;
+        final int[] makespans;
+
+        Breeder(Instance instance, SplittableRandom random, int count) {
+            this.random = random;
+            this.count = count;
+            this.length = instance.numJobs * instance.numTasks;
+            this.batch = new BatchJobNumbersEvaluator(instance, count);
+            this.child = new int[length];
+            this.inSubset = new boolean[instance.numJobs];
+            this.makespans = new int[count];
+        }
+
+        /** Writes offspring `first` to `first + count - 1` and their makespans. Only reads the population. */
+        void breed(int[] population, int[] fitness, int[] offspring, int[] offspringFitness, int first) {
+            for(int k = 0 ; k < count ; k++) {
+                int p1 = tournament(fitness);
+                int p2 = tournament(fitness);
+                crossover(population, p1 * length, p2 * length);
+                if(random.nextDouble() < MUTATION_RATE)
+                    mutate();
+                batch.set(k, child);
+                System.arraycopy(child, 0, offspring, (first + k) * length, length);
+            }
+            batch.evaluate(count, makespans);
+            System.arraycopy(makespans, 0, offspringFitness, first, count);
+        }
+
+        /** Binary tournament : the better of two random individuals. */
+        int tournament(int[] fitness) {
+            int a = random.nextInt(fitness.length);
+            int b = random.nextInt(fitness.length);
+            return fitness[a] <= fitness[b] ? a : b;
+        }
+
+        /** Job-order crossover of the parents at the given offsets into `child`, on a random subset of the jobs. */
+        void crossover(int[] population, int first, int second) {
+            for(int j = 0 ; j < inSubset.length ; j++)
+                inSubset[j] = random.nextBoolean();
+            GeneticSolver.crossover(population, first, second, length, inSubset, child);
+        }
+
+        /** Swaps two random positions or moves one to another random position. */
+        void mutate() {
+            int i = random.nextInt(length);
+            int j = random.nextInt(length);
+            if(random.nextBoolean()) {
+                int tmp = child[i];
+                child[i] = child[j];
+                child[j] = tmp;
+            } else {
+                int job = child[i];
+                if(i < j)
+                    System.arraycopy(child, i + 1, child, i, j - i);
+                else
+                    System.arraycopy(child, j, child, j + 1, i - j);
+                child[j] = job;
+            }
+        }
+    }
+}
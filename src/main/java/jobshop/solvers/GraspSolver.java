@@ -0,0 +1,244 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.Result;
+import jobshop.Solver;
+import jobshop.encodings.PriorityRules;
+import jobshop.encodings.ResourceOrder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/** Greedy randomized adaptive search : restarts of a randomized greedy construction followed by a descent.
+ *
+ * The construction schedules the next task of a job at each step, as GreedySolver, but picks it at random in a
+ * restricted candidate list instead of taking the best one. With an EST rule, the candidates are first restricted
+ * to the tasks starting before minStart + alpha * (maxStart - minStart). Among them, the list keeps the tasks whose
+ * value for the rule (duration or remaining work of the job) is within alpha * (worst - best) of the best one.
+ * alpha is drawn in [0, MAX_ALPHA] at each restart : 0 gives back the greedy solution with random tie breaks.
+ *
+ * The descent then swaps adjacent critical tasks of a machine, scored with HeadsTails.swapEstimate() and applied
+ * with IncrementalHeadsTails, until no swap improves the makespan.
+ *
+ * Each thread runs restarts until the deadline with its own random generator, split in order from a master generator
+ * built on `seed`, and its own buffers. The best solution is kept, ties being broken in favor of the lowest thread.
+ */
+public class GraspSolver implements Solver {
+
+    /** Largest greediness parameter of a restart : the restricted candidate list spans this fraction of the values */
+    private static final double MAX_ALPHA = 0.3;
+
+    private final PriorityRules rule;
+    private final int numThreads;
+    private final long seed;
+
+    public GraspSolver() {
+        this(PriorityRules.EST_LRPT, Runtime.getRuntime().availableProcessors(), 0);
+    }
+
+    public GraspSolver(PriorityRules rule, int numThreads, long seed) {
+        if(numThreads < 1)
+            throw new IllegalArgumentException("At least one thread is needed: " + numThreads);
+        this.rule = rule;
+        this.numThreads = numThreads;
+        this.seed = seed;
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline) {
+        int lowerBound = HeadsTails.lowerBound(instance);
+        SplittableRandom master = new SplittableRandom(seed);
+        List<Restarts> restarts = new ArrayList<>();
+        for(int w = 0 ; w < numThreads ; w++)
+            restarts.add(new Restarts(instance, rule, master.split()));
+        try (Workers workers = new Workers(numThreads, "GRASP workers")) {
+            workers.forEach(numThreads, w -> restarts.get(w).run(deadline, lowerBound));
+        }
+        Restarts best = restarts.get(0);
+        for(Restarts worker : restarts) {
+            if(worker.bestMakespan < best.bestMakespan)
+                best = worker;
+        }
+
+        ResourceOrder order = new ResourceOrder(instance);
+        HeadsTails graph = best.graph;
+        System.arraycopy(best.best, 0, graph.machineSequence, 0, best.best.length);
+        graph.writeTo(order);
+        Result.ExitCause cause = best.bestMakespan == lowerBound ? Result.ExitCause.ProvedOptimal : Result.ExitCause.Timeout;
+        return new Result(instance, order.toSchedule(), cause);
+    }
+
+    /** Restarts of one thread, with all the arrays they need. */
+    static final class Restarts {
+        final Instance instance;
+        final PriorityRules rule;
+        /** True if the candidates are first restricted on their earliest start */
+        final boolean est;
+        final SplittableRandom random;
+        final IncrementalHeadsTails graph;
+
+        /** Best solution found (machine sequences) and its makespan */
+        final int[] best;
+        int bestMakespan = Integer.MAX_VALUE;
+
+        // state of the construction
+        final int[] nextTask;
+        final int[] jobReady;
+        final int[] machineReady;
+        final int[] machineFill;
+        final int[] remaining;
+        final int[] totalWork;
+        final int[] candidates;
+        // critical path and its arcs between tasks of the same machine
+        final int[] path;
+        final int[] arcs;
+
+        Restarts(Instance instance, PriorityRules rule, SplittableRandom random) {
+            this.instance = instance;
+            this.rule = rule;
+            est = rule == PriorityRules.EST_SPT || rule == PriorityRules.EST_LPT
+                    || rule == PriorityRules.EST_SRPT || rule == PriorityRules.EST_LRPT;
+            this.random = random;
+            graph = new IncrementalHeadsTails(instance);
+            best = new int[instance.numMachines * instance.numJobs];
+            nextTask = new int[instance.numJobs];
+            jobReady = new int[instance.numJobs];
+            machineReady = new int[instance.numMachines];
+            machineFill = new int[instance.numMachines];
+            remaining = new int[instance.numJobs];
+            totalWork = new int[instance.numJobs];
+            for(int j = 0 ; j < instance.numJobs ; j++) {
+                for(int t = 0 ; t < instance.numTasks ; t++)
+                    totalWork[j] += instance.duration(j, t);
+            }
+            candidates = new int[instance.numJobs];
+            path = new int[instance.numJobs * instance.numTasks];
+            arcs = new int[path.length];
+        }
+
+        /** Restarts until the deadline or until a solution reaches the lower bound. */
+        void run(long deadline, int lowerBound) {
+            do {
+                construct(random.nextDouble() * MAX_ALPHA);
+                descent(deadline);
+                if(graph.makespan < bestMakespan) {
+                    bestMakespan = graph.makespan;
+                    System.arraycopy(graph.machineSequence, 0, best, 0, best.length);
+                }
+            } while(deadline - System.currentTimeMillis() > 1 && bestMakespan > lowerBound);
+        }
+
+        /** Builds a solution in the graph with restricted candidate lists of greediness alpha. */
+        void construct(double alpha) {
+            reset();
+            for(int step = 0 ; step < path.length ; step++)
+                add(pick(alpha));
+            graph.compute();
+        }
+
+        /** Starts a new construction, with no task scheduled. */
+        void reset() {
+            Arrays.fill(nextTask, 0);
+            Arrays.fill(jobReady, 0);
+            Arrays.fill(machineReady, 0);
+            Arrays.fill(machineFill, 0);
+            System.arraycopy(totalWork, 0, remaining, 0, remaining.length);
+        }
+
+        /** Draws the job whose next task is scheduled, in the restricted candidate list of greediness alpha. */
+        int pick(double alpha) {
+            int count = 0;
+            for(int j = 0 ; j < instance.numJobs ; j++) {
+                if(nextTask[j] < instance.numTasks)
+                    candidates[count++] = j;
+            }
+            if(est) {
+                int minStart = Integer.MAX_VALUE, maxStart = 0;
+                for(int i = 0 ; i < count ; i++) {
+                    int start = start(candidates[i]);
+                    minStart = Math.min(minStart, start);
+                    maxStart = Math.max(maxStart, start);
+                }
+                double limit = minStart + alpha * (maxStart - minStart);
+                int kept = 0;
+                for(int i = 0 ; i < count ; i++) {
+                    if(start(candidates[i]) <= limit)
+                        candidates[kept++] = candidates[i];
+                }
+                count = kept;
+            }
+            int bestValue = Integer.MAX_VALUE, worstValue = Integer.MIN_VALUE;
+            for(int i = 0 ; i < count ; i++) {
+                int value = value(candidates[i]);
+                bestValue = Math.min(bestValue, value);
+                worstValue = Math.max(worstValue, value);
+            }
+            double limit = bestValue + alpha * (worstValue - bestValue);
+            int kept = 0;
+            for(int i = 0 ; i < count ; i++) {
+                if(value(candidates[i]) <= limit)
+                    candidates[kept++] = candidates[i];
+            }
+            return candidates[random.nextInt(kept)];
+        }
+
+        /** Schedules the next task of job j at its earliest start, after the tasks of its machine. */
+        void add(int j) {
+            int t = nextTask[j];
+            int m = instance.machine(j, t);
+            int end = start(j) + instance.duration(j, t);
+            int op = graph.op(j, t);
+            graph.machineSequence[m * instance.numJobs + machineFill[m]] = op;
+            graph.position[op] = machineFill[m];
+            machineFill[m]++;
+            jobReady[j] = end;
+            machineReady[m] = end;
+            remaining[j] -= instance.duration(j, t);
+            nextTask[j]++;
+        }
+
+        /** Earliest start of the next task of job j */
+        int start(int j) {
+            return Math.max(jobReady[j], machineReady[instance.machine(j, nextTask[j])]);
+        }
+
+        /** Value of the next task of job j for the rule, the lowest being the best */
+        int value(int j) {
+            switch (rule) {
+                case SPT:
+                case EST_SPT:
+                    return instance.duration(j, nextTask[j]);
+                case LPT:
+                case EST_LPT:
+                    return -instance.duration(j, nextTask[j]);
+                case SRPT:
+                case EST_SRPT:
+                    return remaining[j];
+                default:
+                    return -remaining[j];
+            }
+        }
+
+        /** Applies the first swap of adjacent critical tasks improving the makespan, until there is none. */
+        private void descent(long deadline) {
+            boolean improved = true;
+            while(improved && deadline - System.currentTimeMillis() > 1) {
+                improved = false;
+                int numArcs = graph.criticalArcs(path, arcs);
+                for(int k = 0 ; k < numArcs && !improved ; k++) {
+                    int u = path[arcs[k]], v = path[arcs[k] + 1];
+                    int makespan = graph.makespan;
+                    if(graph.swapEstimate(u, v) >= makespan)
+                        continue;
+                    graph.swapAndUpdate(u, v);
+                    if(graph.makespan < makespan)
+                        improved = true;
+                    else
+                        graph.swapAndUpdate(v, u);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.Task;
+
+import java.util.Arrays;
+
+/** Heads and tails of every task in the disjunctive graph of a ResourceOrder.
+ *
+ * Tasks are identified by an operation number `job * numTasks + task`.
+ * The head of a task is its earliest start time, its tail is the length of the longest path from its end
+ * to the end of the schedule. A task is critical when head + duration + tail equals the makespan.
+ *
+ * All arrays are allocated once and reused by each call to compute().
+ */
+class HeadsTails {
+
+    final Instance instance;
+
+    /** Duration, machine and index on its machine of each operation */
+    final int[] duration;
+    final int[] machine;
+    final int[] position;
+
+    /** sequence of operations on each machine : machineSequence[m * numJobs + i] is the i-th operation on machine m */
+    final int[] machineSequence;
+
+    final int[] head;
+    final int[] tail;
+    int makespan;
+
+    // operations in a topological order of the graph, filled by compute()
+    final int[] topological;
+    private final int[] nextByJob;
+    private final int[] nextByMachine;
+
+    HeadsTails(Instance instance) {
+        this.instance = instance;
+        int numOps = instance.numJobs * instance.numTasks;
+        duration = new int[numOps];
+        machine = new int[numOps];
+        position = new int[numOps];
+        machineSequence = new int[instance.numMachines * instance.numJobs];
+        head = new int[numOps];
+        tail = new int[numOps];
+        topological = new int[numOps];
+        nextByJob = new int[instance.numJobs];
+        nextByMachine = new int[instance.numMachines];
+
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            for(int t = 0 ; t < instance.numTasks ; t++) {
+                duration[op(j, t)] = instance.duration(j, t);
+                machine[op(j, t)] = instance.machine(j, t);
+            }
+        }
+    }
+
+    int op(int job, int task) {
+        return job * instance.numTasks + task;
+    }
+
+    int op(Task t) {
+        return op(t.job, t.task);
+    }
+
+    Task task(int op) {
+        return new Task(op / instance.numTasks, op % instance.numTasks);
+    }
+
+    /** Previous operation on the same job, -1 if none */
+    int jobPredecessor(int op) {
+        return op % instance.numTasks == 0 ? -1 : op - 1;
+    }
+
+    /** Next operation on the same job, -1 if none */
+    int jobSuccessor(int op) {
+        return op % instance.numTasks == instance.numTasks - 1 ? -1 : op + 1;
+    }
+
+    /** Previous operation on the same machine, -1 if none */
+    int machinePredecessor(int op) {
+        return position[op] == 0 ? -1 : machineSequence[machine[op] * instance.numJobs + position[op] - 1];
+    }
+
+    /** Next operation on the same machine, -1 if none */
+    int machineSuccessor(int op) {
+        return position[op] == instance.numJobs - 1 ? -1 : machineSequence[machine[op] * instance.numJobs + position[op] + 1];
+    }
+
+    /** Time at which an operation ends in the current solution, 0 for -1 (no operation). */
+    int endTime(int op) {
+        return op < 0 ? 0 : head[op] + duration[op];
+    }
+
+    /** Length of the path from the start of an operation to the end of the schedule, 0 for -1 (no operation). */
+    int timeToEnd(int op) {
+        return op < 0 ? 0 : duration[op] + tail[op];
+    }
+
+    /** Computes heads, tails and makespan of the given (complete) resource order.
+     * Returns false if the order contains a cycle, in which case the content of the arrays is meaningless. */
+    boolean compute(ResourceOrder order) {
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            for(int i = 0 ; i < instance.numJobs ; i++) {
+                int o = op(order.tasksByMachine[m][i]);
+                machineSequence[m * instance.numJobs + i] = o;
+                position[o] = i;
+            }
+        }
+        return compute();
+    }
+
+    /** Computes heads, tails and makespan from the current content of machineSequence and position. */
+    boolean compute() {
+        Arrays.fill(nextByJob, 0);
+        Arrays.fill(nextByMachine, 0);
+
+        // heads, in a topological order built as in ResourceOrder.makespan()
+        int numScheduled = 0;
+        makespan = 0;
+        while(numScheduled < topological.length) {
+            boolean progress = false;
+            for(int m = 0 ; m < instance.numMachines ; m++) {
+                while(nextByMachine[m] < instance.numJobs) {
+                    int o = machineSequence[m * instance.numJobs + nextByMachine[m]];
+                    int job = o / instance.numTasks;
+                    if(o % instance.numTasks != nextByJob[job])
+                        break;
+
+                    head[o] = Math.max(endTime(jobPredecessor(o)), endTime(machinePredecessor(o)));
+                    makespan = Math.max(makespan, head[o] + duration[o]);
+                    topological[numScheduled++] = o;
+                    nextByJob[job]++;
+                    nextByMachine[m]++;
+                    progress = true;
+                }
+            }
+            if(!progress)
+                return false;
+        }
+
+        // tails, in the reverse order
+        for(int i = topological.length - 1 ; i >= 0 ; i--) {
+            int o = topological[i];
+            tail[o] = Math.max(timeToEnd(jobSuccessor(o)), timeToEnd(machineSuccessor(o)));
+        }
+        return true;
+    }
+
+    boolean isCritical(int op) {
+        return head[op] + duration[op] + tail[op] == makespan;
+    }
+
+    /** Stores a critical path in `path` (from first to last operation) and returns its length. */
+    int criticalPath(int[] path) {
+        // a critical path starts with the first task of a job
+        int cur = -1;
+        for(int j = 0 ; j < instance.numJobs && cur < 0 ; j++) {
+            if(head[op(j, 0)] == 0 && isCritical(op(j, 0)))
+                cur = op(j, 0);
+        }
+        int length = 0;
+        while(cur >= 0) {
+            path[length++] = cur;
+            int end = head[cur] + duration[cur];
+            int js = jobSuccessor(cur);
+            int ms = machineSuccessor(cur);
+            if(js >= 0 && head[js] == end && isCritical(js))
+                cur = js;
+            else if(ms >= 0 && head[ms] == end && isCritical(ms))
+                cur = ms;
+            else
+                cur = -1;
+        }
+        return length;
+    }
+
+    /** Fills path with a critical path and arcs with the indices i in path of its critical arcs, where path[i + 1]
+     * directly follows path[i] on their machine. Returns the number of critical arcs. */
+    int criticalArcs(int[] path, int[] arcs) {
+        int length = criticalPath(path);
+        int numArcs = 0;
+        for(int i = 0 ; i < length - 1 ; i++) {
+            if(machine[path[i]] == machine[path[i + 1]])
+                arcs[numArcs++] = i;
+        }
+        return numArcs;
+    }
+
+    /** Estimates the makespan after swapping u and v, where v directly follows u on their machine.
+     *
+     * The value is the length of the longest path going through u or v once swapped, computed in O(1)
+     * from current heads and tails (Taillard's estimate). It is exact when u and v stay on all critical paths. */
+    int swapEstimate(int u, int v) {
+        int headV = Math.max(endTime(jobPredecessor(v)), endTime(machinePredecessor(u)));
+        int headU = Math.max(endTime(jobPredecessor(u)), headV + duration[v]);
+        int tailU = Math.max(timeToEnd(jobSuccessor(u)), timeToEnd(machineSuccessor(v)));
+        int tailV = Math.max(timeToEnd(jobSuccessor(v)), duration[u] + tailU);
+        return Math.max(headV + duration[v] + tailV, headU + duration[u] + tailU);
+    }
+
+    /** Swaps u and v in machineSequence and position, heads and tails are not updated. */
+    void swap(int u, int v) {
+        int m = machine[u];
+        int pu = position[u], pv = position[v];
+        machineSequence[m * instance.numJobs + pu] = v;
+        machineSequence[m * instance.numJobs + pv] = u;
+        position[u] = pv;
+        position[v] = pu;
+    }
+
+    /** Writes the current machine sequences into a resource order. */
+    void writeTo(ResourceOrder order) {
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            for(int i = 0 ; i < instance.numJobs ; i++) {
+                order.tasksByMachine[m][i] = task(machineSequence[m * instance.numJobs + i]);
+            }
+            order.nextFreeSlot[m] = instance.numJobs;
+        }
+    }
+
+    /** Makespan lower bound of an instance : the longest job and the most loaded machine. */
+    static int lowerBound(Instance instance) {
+        int[] load = new int[instance.numMachines];
+        int bound = 0;
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            int length = 0;
+            for(int t = 0 ; t < instance.numTasks ; t++) {
+                length += instance.duration(j, t);
+                load[instance.machine(j, t)] += instance.duration(j, t);
+            }
+            bound = Math.max(bound, length);
+        }
+        for(int l : load)
+            bound = Math.max(bound, l);
+        return bound;
+    }
+}
@@ -0,0 +1,236 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+
+import java.util.Arrays;
+
+/** Heads and tails kept up to date while tasks are swapped, without recomputing the whole graph.
+ *
+ * A topological order of the graph is maintained (ord[op] is the rank of an operation). Swapping two adjacent
+ * tasks u, v of a machine replaces the arc u -> v by v -> u, the only new arc that can go backward in the order.
+ * Moving a task over several tasks of its machine (see moveAndUpdate) also creates a single such arc.
+ * As in the algorithm of Pearce and Kelly, only the operations between u and v in the order are concerned :
+ * those reachable from u and those reaching v are collected and given the same ranks again, the ones reaching v
+ * first. If v is reachable from u, the swap creates a cycle and is undone.
+ *
+ * Heads are then recomputed from the operations whose predecessors changed, in the topological order with a
+ * priority queue, and propagated only to the successors whose head changes. Tails are updated the same way
+ * in the reverse order. The makespan is the largest end of the last tasks of the jobs, so a swap costs
+ * O(numJobs) plus the number of operations whose head or tail changes, instead of the whole graph for compute().
+ *
+ * The makespan and whether an operation or an arc is critical can then be read in constant time.
+ */
+class IncrementalHeadsTails extends HeadsTails {
+
+    /** Rank of each operation in the topological order */
+    final int[] ord;
+
+    // operations visited by the current search are marked with the current epoch
+    private final int[] mark;
+    private int epoch;
+
+    private final int[] forward;
+    private final int[] backward;
+    private final int[] stack;
+    private final long[] keys;
+    private final int[] ranks;
+
+    // binary heap of operations ordered by rank, increasing for heads and decreasing for tails
+    private final int[] heap;
+    private int heapSize;
+
+    IncrementalHeadsTails(Instance instance) {
+        super(instance);
+        int numOps = instance.numJobs * instance.numTasks;
+        ord = new int[numOps];
+        mark = new int[numOps];
+        forward = new int[numOps];
+        backward = new int[numOps];
+        stack = new int[numOps];
+        keys = new long[numOps];
+        ranks = new int[numOps];
+        heap = new int[numOps];
+    }
+
+    @Override
+    boolean compute() {
+        if(!super.compute())
+            return false;
+        for(int i = 0 ; i < topological.length ; i++)
+            ord[topological[i]] = i;
+        return true;
+    }
+
+    /** True if v directly follows u on their machine and both are on a critical path through this arc. */
+    boolean isCriticalArc(int u, int v) {
+        return machineSuccessor(u) == v && isCritical(u) && isCritical(v) && head[v] == head[u] + duration[u];
+    }
+
+    /** Swaps u and v, where v directly follows u on their machine, and updates heads, tails and makespan.
+     * Returns false, leaving the graph unchanged, if the swap creates a cycle. */
+    boolean swapAndUpdate(int u, int v) {
+        return moveAndUpdate(u, position[v]);
+    }
+
+    /** Moves op to position `to` on its machine, the tasks in between being shifted by one position, and updates
+     * heads, tails and makespan. Returns false, leaving the graph unchanged, if the move creates a cycle.
+     *
+     * Of the arcs of the new sequence, only the one between op and the task it jumps over last can go backward in
+     * the topological order : the other tasks keep their relative order and op is placed before or after all of
+     * them, so the order is restored from this single arc. */
+    boolean moveAndUpdate(int op, int to) {
+        int from = position[op];
+        if(from == to)
+            return true;
+        int base = machine[op] * instance.numJobs;
+        int jumped = machineSequence[base + to];
+        shift(base, from, to);
+        if(!(from < to ? reorder(jumped, op) : reorder(op, jumped))) {
+            shift(base, to, from);
+            return false;
+        }
+        int lo = Math.min(from, to), hi = Math.max(from, to);
+
+        // the tasks from lo to hi and the one after them have new predecessors
+        epoch++;
+        heapSize = 0;
+        for(int p = lo ; p <= hi + 1 && p < instance.numJobs ; p++)
+            push(machineSequence[base + p], 1);
+        while(heapSize > 0) {
+            int o = pop(1);
+            int h = Math.max(endTime(jobPredecessor(o)), endTime(machinePredecessor(o)));
+            if(h != head[o]) {
+                head[o] = h;
+                push(jobSuccessor(o), 1);
+                push(machineSuccessor(o), 1);
+            }
+        }
+
+        // the task before them and the tasks from lo to hi have new successors
+        epoch++;
+        heapSize = 0;
+        for(int p = Math.max(0, lo - 1) ; p <= hi ; p++)
+            push(machineSequence[base + p], -1);
+        while(heapSize > 0) {
+            int o = pop(-1);
+            int t = Math.max(timeToEnd(jobSuccessor(o)), timeToEnd(machineSuccessor(o)));
+            if(t != tail[o]) {
+                tail[o] = t;
+                push(jobPredecessor(o), -1);
+                push(machinePredecessor(o), -1);
+            }
+        }
+
+        makespan = 0;
+        for(int j = 0 ; j < instance.numJobs ; j++)
+            makespan = Math.max(makespan, endTime(op(j, instance.numTasks - 1)));
+        return true;
+    }
+
+    /** Moves the task at position `from` of the machine sequence starting at `base` to position `to`. */
+    private void shift(int base, int from, int to) {
+        int op = machineSequence[base + from];
+        int step = from < to ? 1 : -1;
+        for(int p = from ; p != to ; p += step) {
+            int next = machineSequence[base + p + step];
+            machineSequence[base + p] = next;
+            position[next] = p;
+        }
+        machineSequence[base + to] = op;
+        position[op] = to;
+    }
+
+    /** Restores a topological order after adding the arc x -> y. Returns false if the arc closes a cycle. */
+    private boolean reorder(int x, int y) {
+        int lower = ord[y], upper = ord[x];
+        if(lower > upper)
+            return true;
+        epoch++;
+
+        // operations reachable from y, ranked before x
+        int numForward = 0, size = 0;
+        stack[size++] = y;
+        mark[y] = epoch;
+        while(size > 0) {
+            int op = stack[--size];
+            forward[numForward++] = op;
+            int js = jobSuccessor(op), ms = machineSuccessor(op);
+            if(js == x || ms == x)
+                return false;
+            size = visit(js, js >= 0 && ord[js] < upper, size);
+            size = visit(ms, ms >= 0 && ord[ms] < upper, size);
+        }
+        // operations reaching x, ranked after y
+        int numBackward = 0;
+        stack[size++] = x;
+        mark[x] = epoch;
+        while(size > 0) {
+            int op = stack[--size];
+            backward[numBackward++] = op;
+            int jp = jobPredecessor(op), mp = machinePredecessor(op);
+            size = visit(jp, jp >= 0 && ord[jp] > lower, size);
+            size = visit(mp, mp >= 0 && ord[mp] > lower, size);
+        }
+
+        // the ranks they used are given to the backward operations, then to the forward ones, each in their order
+        int n = 0;
+        for(int i = 0 ; i < numBackward ; i++)
+            ranks[n++] = ord[backward[i]];
+        for(int i = 0 ; i < numForward ; i++)
+            ranks[n++] = ord[forward[i]];
+        Arrays.sort(ranks, 0, n);
+        assign(forward, numForward, assign(backward, numBackward, 0));
+        return true;
+    }
+
+    /** Pushes op on the stack of the search if it is in the range and not visited yet, returns the stack size. */
+    private int visit(int op, boolean inRange, int size) {
+        if(!inRange || mark[op] == epoch)
+            return size;
+        mark[op] = epoch;
+        stack[size] = op;
+        return size + 1;
+    }
+
+    private int assign(int[] ops, int count, int firstRank) {
+        for(int i = 0 ; i < count ; i++)
+            keys[i] = ((long) ord[ops[i]] << 32) | ops[i];
+        Arrays.sort(keys, 0, count);
+        for(int i = 0 ; i < count ; i++) {
+            int op = (int) keys[i];
+            int rank = ranks[firstRank + i];
+            ord[op] = rank;
+        }
+        return firstRank + count;
+    }
+
+    /** Adds an operation (ignoring -1 and operations already queued) to the heap, by rank times `sign`. */
+    private void push(int op, int sign) {
+        if(op < 0 || mark[op] == epoch)
+            return;
+        mark[op] = epoch;
+        int i = heapSize++;
+        while(i > 0 && sign * ord[heap[(i - 1) / 2]] > sign * ord[op]) {
+            heap[i] = heap[(i - 1) / 2];
+            i = (i - 1) / 2;
+        }
+        heap[i] = op;
+    }
+
+    private int pop(int sign) {
+        int top = heap[0];
+        int last = heap[--heapSize];
+        int i = 0;
+        while(2 * i + 1 < heapSize) {
+            int child = 2 * i + 1;
+            if(child + 1 < heapSize && sign * ord[heap[child + 1]] < sign * ord[heap[child]])
+                child++;
+            if(sign * ord[heap[child]] >= sign * ord[last])
+                break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return top;
+    }
+}
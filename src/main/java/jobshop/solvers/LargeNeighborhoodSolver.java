@@ -0,0 +1,235 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.Result;
+import jobshop.Solver;
+import jobshop.encodings.PriorityRules;
+import jobshop.encodings.ResourceOrder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/** Large neighborhood search : parts of the current solution are ruined and rebuilt.
+ *
+ * Two kinds of ruins are used, each half of the time, both rebuilt with the one machine problem of Carlier's
+ * branch and bound, limited to PartialGraph.NODE_LIMIT nodes (see OneMachineProblem) :
+ *  - time window : the tasks starting in a random window of the schedule are freed. On each machine they form a
+ *    block of consecutive tasks, which is re-sequenced between the tasks before and after it, machine after
+ *    machine in a random order. A new block order is kept only if it does not increase the makespan.
+ *  - machines : the sequences of a few random machines are freed and rebuilt one machine at a time, the bottleneck
+ *    first, as in the shifting bottleneck (see PartialGraph).
+ *
+ * At each round, every thread runs a short walk of ROUND_MOVES ruins from the current solution, accepting rebuilt
+ * solutions that are not worse. The best walk becomes the new current solution if it is not worse.
+ */
+public class LargeNeighborhoodSolver implements Solver {
+
+    /** Number of ruin and recreate moves of a walk between two synchronizations of the threads */
+    private static final int ROUND_MOVES = 20;
+    /** Bounds of the length of a time window, relatively to the makespan */
+    private static final double MIN_WINDOW = 0.05, MAX_WINDOW = 0.25;
+    /** Maximum number of machines freed by a machine ruin, relatively to the number of machines (at least 2) */
+    private static final double MAX_MACHINES = 0.2;
+
+    private final int numThreads;
+    private final long seed;
+
+    public LargeNeighborhoodSolver() {
+        this(Runtime.getRuntime().availableProcessors(), 0);
+    }
+
+    public LargeNeighborhoodSolver(int numThreads, long seed) {
+        if(numThreads < 1)
+            throw new IllegalArgumentException("At least one thread is needed: " + numThreads);
+        this.numThreads = numThreads;
+        this.seed = seed;
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline) {
+        ResourceOrder order = new ResourceOrder(new GreedySolver(PriorityRules.EST_LRPT).solve(instance, deadline).schedule);
+        HeadsTails graph = new HeadsTails(instance);
+        graph.compute(order);
+        int[] current = graph.machineSequence.clone();
+        int currentMakespan = graph.makespan;
+        int lowerBound = HeadsTails.lowerBound(instance);
+
+        SplittableRandom master = new SplittableRandom(seed);
+        List<Walk> walks = new ArrayList<>();
+        for(int t = 0 ; t < numThreads ; t++)
+            walks.add(new Walk(instance, master.split()));
+
+        try (Workers workers = new Workers(numThreads, "neighborhood walks")) {
+            while(deadline - System.currentTimeMillis() > 1 && currentMakespan > lowerBound) {
+                int[] start = current;
+                workers.forEach(numThreads, t -> walks.get(t).run(start, deadline));
+                for(Walk walk : walks) {
+                    if(walk.makespan <= currentMakespan) {
+                        currentMakespan = walk.makespan;
+                        current = walk.sequences.clone();
+                    }
+                }
+            }
+        }
+
+        System.arraycopy(current, 0, graph.machineSequence, 0, current.length);
+        graph.writeTo(order);
+        Result.ExitCause cause = currentMakespan == lowerBound ? Result.ExitCause.ProvedOptimal : Result.ExitCause.Timeout;
+        return new Result(instance, order.toSchedule(), cause);
+    }
+
+    /** Ruin and recreate moves of one thread, with all the arrays they need. */
+    static final class Walk {
+        final Instance instance;
+        final SplittableRandom random;
+        final HeadsTails graph;
+        final HeadsTails work;
+        final PartialGraph partial;
+        final OneMachineProblem problem;
+
+        /** Best solution of the last walk and its makespan */
+        final int[] sequences;
+        int makespan;
+
+        // rebuilt solution
+        final int[] rebuilt;
+        // machines in a random order
+        final int[] machines;
+        // sequence of the tasks of a machine being rebuilt
+        final int[] machineSequence;
+        final int[] bestSequence;
+
+        Walk(Instance instance, SplittableRandom random) {
+            this.instance = instance;
+            this.random = random;
+            graph = new HeadsTails(instance);
+            work = new HeadsTails(instance);
+            partial = new PartialGraph(instance);
+            problem = new OneMachineProblem(instance.numJobs);
+            sequences = new int[instance.numMachines * instance.numJobs];
+            rebuilt = new int[sequences.length];
+            machines = new int[instance.numMachines];
+            for(int m = 0 ; m < instance.numMachines ; m++)
+                machines[m] = m;
+            machineSequence = new int[instance.numJobs];
+            bestSequence = new int[instance.numJobs];
+        }
+
+        /** Runs ROUND_MOVES moves from the given solution, the best one found is left in sequences and makespan. */
+        void run(int[] start, long deadline) {
+            System.arraycopy(start, 0, graph.machineSequence, 0, start.length);
+            load(graph);
+            System.arraycopy(start, 0, sequences, 0, start.length);
+            makespan = graph.makespan;
+
+            for(int move = 0 ; move < ROUND_MOVES && deadline - System.currentTimeMillis() > 1 ; move++) {
+                int value = random.nextBoolean() ? ruinWindow() : ruinMachines();
+                if(value <= makespan) {
+                    makespan = value;
+                    System.arraycopy(rebuilt, 0, sequences, 0, rebuilt.length);
+                    System.arraycopy(rebuilt, 0, graph.machineSequence, 0, rebuilt.length);
+                    load(graph);
+                }
+            }
+        }
+
+        private void load(HeadsTails graph) {
+            for(int i = 0 ; i < graph.machineSequence.length ; i++)
+                graph.position[graph.machineSequence[i]] = i % instance.numJobs;
+            graph.compute();
+        }
+
+        /** Frees the tasks starting in a random time window and rebuilds the solution in `rebuilt`, returns its makespan. */
+        int ruinWindow() {
+            int length = (int) (graph.makespan * (MIN_WINDOW + random.nextDouble() * (MAX_WINDOW - MIN_WINDOW)));
+            int from = random.nextInt(Math.max(1, graph.makespan - length));
+            System.arraycopy(graph.machineSequence, 0, work.machineSequence, 0, rebuilt.length);
+            load(work);
+
+            // on each machine, the tasks starting in the window are consecutive : this block is re-sequenced by
+            // solving its one machine problem between the tasks before and after it
+            shuffleMachines(instance.numMachines);
+            for(int i = 0 ; i < instance.numMachines ; i++) {
+                int m = machines[i];
+                int base = m * instance.numJobs;
+                int a = 0;
+                while(a < instance.numJobs && graph.head[graph.machineSequence[base + a]] < from)
+                    a++;
+                int b = a;
+                while(b < instance.numJobs && graph.head[graph.machineSequence[base + b]] < from + length)
+                    b++;
+                if(b - a < 2)
+                    continue;
+                int before = a > 0 ? work.machineSequence[base + a - 1] : -1;
+                int after = b < instance.numJobs ? work.machineSequence[base + b] : -1;
+                for(int x = a ; x < b ; x++) {
+                    int op = work.machineSequence[base + x];
+                    machineSequence[x - a] = op;
+                    problem.r[x - a] = Math.max(work.endTime(work.jobPredecessor(op)), work.endTime(before));
+                    problem.p[x - a] = work.duration[op];
+                    problem.q[x - a] = Math.max(work.timeToEnd(work.jobSuccessor(op)), work.timeToEnd(after));
+                }
+                int previous = work.makespan;
+                problem.solve(b - a, PartialGraph.NODE_LIMIT);
+                setBlock(base + a, b - a, problem.sequence);
+                if(!work.compute() || work.makespan > previous) {
+                    setBlock(base + a, b - a, null);
+                    work.compute();
+                }
+            }
+            System.arraycopy(work.machineSequence, 0, rebuilt, 0, rebuilt.length);
+            return work.makespan;
+        }
+
+        /** Puts `count` random machines at the start of machines, in a random order. */
+        private void shuffleMachines(int count) {
+            for(int i = 0 ; i < count ; i++) {
+                int k = i + random.nextInt(instance.numMachines - i);
+                int m = machines[k];
+                machines[k] = machines[i];
+                machines[i] = m;
+            }
+        }
+
+        /** Writes the block of `count` tasks of machineSequence at index `first` of the work graph, in the order
+         * given by `order` (indices in the block), or in their initial order if `order` is null. */
+        private void setBlock(int first, int count, int[] order) {
+            for(int i = 0 ; i < count ; i++) {
+                int op = machineSequence[order == null ? i : order[i]];
+                work.machineSequence[first + i] = op;
+                work.position[op] = (first + i) % instance.numJobs;
+            }
+        }
+
+        /** Frees the sequences of a few random machines and rebuilds them in `rebuilt`, returns its makespan. */
+        int ruinMachines() {
+            int count = 2 + random.nextInt(Math.max(1, (int) (instance.numMachines * MAX_MACHINES) - 1));
+            count = Math.min(count, instance.numMachines);
+            shuffleMachines(count);
+            partial.load(graph.machineSequence);
+            for(int i = 0 ; i < count ; i++)
+                partial.sequenced[machines[i]] = false;
+            partial.compute();
+
+            // the bottleneck among the freed machines is sequenced first, as in the shifting bottleneck
+            for(int step = 0 ; step < count ; step++) {
+                int bottleneck = -1, bottleneckValue = -1;
+                for(int i = 0 ; i < count ; i++) {
+                    int m = machines[i];
+                    if(partial.sequenced[m])
+                        continue;
+                    int value = partial.solveMachine(m, problem, machineSequence);
+                    if(value > bottleneckValue) {
+                        bottleneck = m;
+                        bottleneckValue = value;
+                        System.arraycopy(machineSequence, 0, bestSequence, 0, instance.numJobs);
+                    }
+                }
+                partial.fix(bottleneck, bestSequence);
+            }
+            System.arraycopy(partial.machineSequence, 0, rebuilt, 0, rebuilt.length);
+            return partial.makespan;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.Task;
+import jobshop.encodings.ZobristHash;
+
+/** Insertion neighborhood N6 of Balas and Vazacopoulos on the critical blocks of a solution.
+ *
+ * For each block of a critical path (maximal sequence of consecutive critical tasks on the same machine),
+ * every task is moved to the start or to the end of its block. A move is only generated when it cannot create
+ * a cycle, which is guaranteed for tasks u and v of a critical path by :
+ *  - moving u right after v : the tail of v is at least the one of the job successor of u,
+ *  - moving v right before u : the end of u is at least the one of the job predecessor of v.
+ * Moves are therefore applied without any cycle check.
+ *
+ * Each move is scored with the longest path through the moved tasks, heads being propagated forward and tails
+ * backward along the new machine sequence from the unchanged heads and tails of their job neighbors.
+ * It generalizes HeadsTails.swapEstimate() to insertions and is exact when the job neighbors keep their heads
+ * and tails. Computing it costs the length of the block, against a full decoding for an exact makespan.
+ *
+ * A move is identified by an index in [0, size) : the task moved[i] goes from position from[i] to position to[i]
+ * on its machine, the tasks in between are shifted by one position.
+ */
+class N6Neighborhood {
+
+    final HeadsTails graph;
+
+    /** Moves found by the last call to generate() */
+    int size;
+    final int[] moved;
+    final int[] from;
+    final int[] to;
+    final int[] estimate;
+
+    private final int[] path;
+    // heads of the tasks of a block, in the new sequence
+    private final int[] heads;
+
+    N6Neighborhood(HeadsTails graph) {
+        this.graph = graph;
+        Instance instance = graph.instance;
+        int numOps = instance.numJobs * instance.numTasks;
+        moved = new int[2 * numOps];
+        from = new int[2 * numOps];
+        to = new int[2 * numOps];
+        estimate = new int[2 * numOps];
+        path = new int[numOps];
+        heads = new int[instance.numJobs];
+    }
+
+    /** Generates the feasible moves of the solution whose heads and tails were last computed by the graph. */
+    int generate() {
+        size = 0;
+        int length = graph.criticalPath(path);
+        int start = 0;
+        while(start < length) {
+            int end = start;
+            while(end + 1 < length && graph.machine[path[end + 1]] == graph.machine[path[start]])
+                end++;
+            if(end > start)
+                block(path[start], path[end]);
+            start = end + 1;
+        }
+        return size;
+    }
+
+    private void block(int first, int last) {
+        int firstPos = graph.position[first], lastPos = graph.position[last];
+        int machine = graph.machine[first];
+        for(int p = firstPos ; p < lastPos ; p++) {
+            // task u moved right after the last task of the block
+            int u = graph.machineSequence[machine * graph.instance.numJobs + p];
+            int js = graph.jobSuccessor(u);
+            if(js < 0 || graph.timeToEnd(last) >= graph.timeToEnd(js))
+                add(u, p, lastPos);
+        }
+        for(int p = firstPos + 1 ; p <= lastPos ; p++) {
+            // with two tasks, moving the second before the first is the same move as above
+            if(lastPos - firstPos == 1)
+                break;
+            // task v moved right before the first task of the block
+            int v = graph.machineSequence[machine * graph.instance.numJobs + p];
+            int jp = graph.jobPredecessor(v);
+            if(jp < 0 || graph.endTime(first) >= graph.endTime(jp))
+                add(v, p, firstPos);
+        }
+    }
+
+    private void add(int op, int fromPos, int toPos) {
+        moved[size] = op;
+        from[size] = fromPos;
+        to[size] = toPos;
+        estimate[size] = estimate(op, fromPos, toPos);
+        size++;
+    }
+
+    /** Task at the given position of its machine once the move is applied. */
+    private int taskAfterMove(int m, int op, int fromPos, int toPos, int pos) {
+        if(pos == toPos)
+            return op;
+        int oldPos = fromPos < toPos ? pos + 1 : pos - 1;
+        return graph.machineSequence[m * graph.instance.numJobs + oldPos];
+    }
+
+    private int estimate(int op, int fromPos, int toPos) {
+        int m = graph.machine[op];
+        int lo = Math.min(fromPos, toPos), hi = Math.max(fromPos, toPos);
+        int numJobs = graph.instance.numJobs;
+
+        int time = lo == 0 ? 0 : graph.endTime(graph.machineSequence[m * numJobs + lo - 1]);
+        for(int pos = lo ; pos <= hi ; pos++) {
+            int w = taskAfterMove(m, op, fromPos, toPos, pos);
+            heads[pos - lo] = Math.max(graph.endTime(graph.jobPredecessor(w)), time);
+            time = heads[pos - lo] + graph.duration[w];
+        }
+        int longest = 0;
+        int tail = hi == numJobs - 1 ? 0 : graph.timeToEnd(graph.machineSequence[m * numJobs + hi + 1]);
+        for(int pos = hi ; pos >= lo ; pos--) {
+            int w = taskAfterMove(m, op, fromPos, toPos, pos);
+            tail = Math.max(graph.timeToEnd(graph.jobSuccessor(w)), tail);
+            longest = Math.max(longest, heads[pos - lo] + graph.duration[w] + tail);
+            tail += graph.duration[w];
+        }
+        return longest;
+    }
+
+    /** Applies move i on `order`, which must be the solution the moves were generated from. */
+    void applyOn(ResourceOrder order, int i) {
+        Task[] seq = order.tasksByMachine[graph.machine[moved[i]]];
+        Task t = seq[from[i]];
+        if(from[i] < to[i])
+            System.arraycopy(seq, from[i] + 1, seq, from[i], to[i] - from[i]);
+        else
+            System.arraycopy(seq, to[i], seq, to[i] + 1, from[i] - to[i]);
+        seq[to[i]] = t;
+    }
+
+    /** Hash of the solution obtained by applying move i, given the hash of the current solution. */
+    long hash(ZobristHash zobrist, long hash, int i) {
+        int m = graph.machine[moved[i]];
+        int lo = Math.min(from[i], to[i]), hi = Math.max(from[i], to[i]);
+        for(int pos = lo ; pos <= hi ; pos++) {
+            hash ^= zobrist.key(graph.machineSequence[m * graph.instance.numJobs + pos], pos);
+            hash ^= zobrist.key(taskAfterMove(m, moved[i], from[i], to[i], pos), pos);
+        }
+        return hash;
+    }
+
+    /** Each move reverses the arcs between the moved task and the tasks it jumps over. With taboo[a][b] the
+     * iteration until which the arc a -> b must not be reversed, returns true if move i reverses a taboo arc. */
+    boolean isTaboo(int[][] taboo, int iteration, int i) {
+        int m = graph.machine[moved[i]];
+        int op = moved[i];
+        if(from[i] < to[i]) {
+            for(int pos = from[i] + 1 ; pos <= to[i] ; pos++) {
+                if(taboo[op][graph.machineSequence[m * graph.instance.numJobs + pos]] >= iteration)
+                    return true;
+            }
+        } else {
+            for(int pos = to[i] ; pos < from[i] ; pos++) {
+                if(taboo[graph.machineSequence[m * graph.instance.numJobs + pos]][op] >= iteration)
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /** Forbids to reverse the arcs created by move i until the given iteration. */
+    void makeTaboo(int[][] taboo, int until, int i) {
+        int m = graph.machine[moved[i]];
+        int op = moved[i];
+        if(from[i] < to[i]) {
+            for(int pos = from[i] + 1 ; pos <= to[i] ; pos++)
+                taboo[graph.machineSequence[m * graph.instance.numJobs + pos]][op] = until;
+        } else {
+            for(int pos = to[i] ; pos < from[i] ; pos++)
+                taboo[op][graph.machineSequence[m * graph.instance.numJobs + pos]] = until;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package jobshop.solvers;
+
+/** Neighborhoods explored by the local search solvers. */
+public enum Neighborhood {
+    /** Swap of the first two and of the last two tasks of each critical block (Nowicki and Smutnicki). */
+    SWAP,
+    /** Move of each task of a critical block to the start or to the end of the block (see N6Neighborhood). */
+    N6;
+}
@@ -0,0 +1,224 @@
+package jobshop.solvers;
+
+import java.util.Arrays;
+
+/** One machine problem with release dates and tails (1|r_j,q_j|Cmax) : jobs j = 0 .. n-1 have a release date
+ * r[j], a duration p[j] and a tail q[j], the value of a sequence is the maximum over all jobs of their completion
+ * time plus their tail. It is the subproblem solved for each machine by the shifting bottleneck.
+ *
+ * Schrage's heuristic schedules, whenever the machine is free, the released job with the largest tail.
+ * Carlier's branch and bound improves it : on the critical sequence of a Schrage schedule, a job c with a tail
+ * smaller than the last job is either put after the jobs J that follow it (r[c] is raised to r(J) + p(J)) or before
+ * them (q[c] is raised to p(J) + q(J)). Nodes are bounded with the preemptive Schrage schedule, which is optimal
+ * for the preemptive problem. Both schedules use binary heaps of job indices, in O(n log n).
+ *
+ * Arrays are allocated for at most `capacity` jobs and reused by each call to solve().
+ */
+class OneMachineProblem {
+
+    /** Release dates, durations and tails of the jobs of the current problem. */
+    final int[] r, p, q;
+    int n;
+
+    /** Best sequence found by the last call to solve(), and its value */
+    final int[] sequence;
+    int value;
+
+    /** Number of branch and bound nodes explored by the last call to solve() */
+    int nodes;
+    private int nodeLimit;
+
+    // current Schrage schedule
+    private final int[] seq;
+    private final int[] start;
+    // jobs by increasing release date
+    private final int[] byRelease;
+    // binary heap of released jobs, by decreasing tail
+    private final int[] heap;
+    private int heapSize;
+    // remaining duration of each job in the preemptive schedule
+    private final int[] remaining;
+
+    OneMachineProblem(int capacity) {
+        r = new int[capacity];
+        p = new int[capacity];
+        q = new int[capacity];
+        sequence = new int[capacity];
+        seq = new int[capacity];
+        start = new int[capacity];
+        byRelease = new int[capacity];
+        heap = new int[capacity];
+        remaining = new int[capacity];
+    }
+
+    /** Solves the problem on the first n jobs of r, p and q, exploring at most nodeLimit nodes.
+     * Returns the value of the best sequence found, optimal if fewer than nodeLimit nodes were explored.
+     * r and q are restored before returning. */
+    int solve(int n, int nodeLimit) {
+        this.n = n;
+        this.nodeLimit = nodeLimit;
+        nodes = 0;
+        value = Integer.MAX_VALUE;
+        // first full sort, branching then only changes one release date at a time
+        sortAllByRelease();
+        carlier(preemptiveBound());
+        return value;
+    }
+
+    /** Value of the preemptive schedule of the first n jobs of r, p and q : a lower bound of the problem. */
+    int preemptiveBound(int n) {
+        this.n = n;
+        sortAllByRelease();
+        return preemptiveBound();
+    }
+
+    private void sortAllByRelease() {
+        long[] keys = new long[n];
+        for(int j = 0 ; j < n ; j++)
+            keys[j] = ((long) r[j] << 32) | j;
+        Arrays.sort(keys);
+        for(int j = 0 ; j < n ; j++)
+            byRelease[j] = (int) keys[j];
+    }
+
+    private void carlier(int lowerBound) {
+        nodes++;
+        int cmax = schrage();
+        if(cmax < value) {
+            value = cmax;
+            System.arraycopy(seq, 0, sequence, 0, n);
+        }
+        if(value <= lowerBound || nodes >= nodeLimit)
+            return;
+
+        // b : last job of the sequence reaching cmax, a : first job of the block without idle time ending with b
+        int b = n - 1;
+        while(start[seq[b]] + p[seq[b]] + q[seq[b]] != cmax)
+            b--;
+        int a = b;
+        while(a > 0 && start[seq[a - 1]] + p[seq[a - 1]] == start[seq[a]])
+            a--;
+        // c : last job of the block with a tail smaller than the one of b, Schrage is optimal if there is none
+        int c = b - 1;
+        while(c >= a && q[seq[c]] >= q[seq[b]])
+            c--;
+        if(c < a)
+            return;
+
+        int rJ = Integer.MAX_VALUE, qJ = Integer.MAX_VALUE, pJ = 0;
+        for(int i = c + 1 ; i <= b ; i++) {
+            rJ = Math.min(rJ, r[seq[i]]);
+            qJ = Math.min(qJ, q[seq[i]]);
+            pJ += p[seq[i]];
+        }
+        int jc = seq[c];
+        // lower bound of both branches : the jobs of J must all be processed
+        int boundJ = rJ + pJ + qJ;
+
+        // c after all jobs of J
+        int old = r[jc];
+        r[jc] = Math.max(old, rJ + pJ);
+        int bound = Math.max(lowerBound, Math.max(boundJ, Math.min(rJ, r[jc]) + pJ + p[jc] + Math.min(qJ, q[jc])));
+        if(bound < value) {
+            bound = Math.max(bound, preemptiveBound());
+            if(bound < value)
+                carlier(bound);
+        }
+        r[jc] = old;
+
+        // c before all jobs of J
+        old = q[jc];
+        q[jc] = Math.max(old, qJ + pJ);
+        bound = Math.max(lowerBound, Math.max(boundJ, Math.min(rJ, r[jc]) + pJ + p[jc] + Math.min(qJ, q[jc])));
+        if(bound < value) {
+            bound = Math.max(bound, preemptiveBound());
+            if(bound < value)
+                carlier(bound);
+        }
+        q[jc] = old;
+    }
+
+    /** Schrage's schedule of the current problem in seq and start, returns its value. */
+    private int schrage() {
+        sortByRelease();
+        heapSize = 0;
+        int t = 0, next = 0, cmax = 0;
+        for(int k = 0 ; k < n ; k++) {
+            if(heapSize == 0 && r[byRelease[next]] > t)
+                t = r[byRelease[next]];
+            while(next < n && r[byRelease[next]] <= t)
+                push(byRelease[next++]);
+            int j = pop();
+            seq[k] = j;
+            start[j] = t;
+            t += p[j];
+            cmax = Math.max(cmax, t + q[j]);
+        }
+        return cmax;
+    }
+
+    /** Value of the preemptive Schrage schedule : the running job is interrupted when a job with a larger tail
+     * is released. It is optimal for the preemptive problem, hence a lower bound of the problem. */
+    private int preemptiveBound() {
+        sortByRelease();
+        heapSize = 0;
+        for(int j = 0 ; j < n ; j++)
+            remaining[j] = p[j];
+        int t = 0, next = 0, bound = 0;
+        while(next < n || heapSize > 0) {
+            if(heapSize == 0 && r[byRelease[next]] > t)
+                t = r[byRelease[next]];
+            while(next < n && r[byRelease[next]] <= t)
+                push(byRelease[next++]);
+            int j = heap[0];
+            // run j until it completes or until the next release
+            int until = next < n ? Math.min(t + remaining[j], r[byRelease[next]]) : t + remaining[j];
+            remaining[j] -= until - t;
+            t = until;
+            if(remaining[j] == 0) {
+                pop();
+                bound = Math.max(bound, t + q[j]);
+            }
+        }
+        return bound;
+    }
+
+    /** Insertion sort of the jobs by release date, linear when they are already sorted but one. */
+    private void sortByRelease() {
+        for(int i = 1 ; i < n ; i++) {
+            int j = byRelease[i];
+            int k = i - 1;
+            while(k >= 0 && r[byRelease[k]] > r[j]) {
+                byRelease[k + 1] = byRelease[k];
+                k--;
+            }
+            byRelease[k + 1] = j;
+        }
+    }
+
+    private void push(int j) {
+        int i = heapSize++;
+        while(i > 0 && q[heap[(i - 1) / 2]] < q[j]) {
+            heap[i] = heap[(i - 1) / 2];
+            i = (i - 1) / 2;
+        }
+        heap[i] = j;
+    }
+
+    private int pop() {
+        int top = heap[0];
+        int last = heap[--heapSize];
+        int i = 0;
+        while(2 * i + 1 < heapSize) {
+            int child = 2 * i + 1;
+            if(child + 1 < heapSize && q[heap[child + 1]] > q[heap[child]])
+                child++;
+            if(q[heap[child]] <= q[last])
+                break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return top;
+    }
+}
@@ -0,0 +1,181 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.Task;
+
+import java.util.Arrays;
+
+/** Disjunctive graph with the job precedences and the sequences of some of the machines.
+ *
+ * The machines left out are re-sequenced one at a time by solving their one machine problem on the heads and tails
+ * of the graph, as done by the shifting bottleneck and by the machine ruins of the large neighborhood search.
+ */
+class PartialGraph {
+
+    /** Maximum number of branch and bound nodes for a one machine problem */
+    static final int NODE_LIMIT = 1000;
+
+    final Instance instance;
+    final int[] duration;
+    final int[] machine;
+    final boolean[] sequenced;
+    // machineSequence[m * numJobs + i] : i-th operation on machine m, only meaningful if m is sequenced
+    final int[] machineSequence;
+    final int[] position;
+    final int[] head;
+    final int[] tail;
+    int makespan;
+
+    private final int[] topological;
+    private final int[] inDegree;
+
+    PartialGraph(Instance instance) {
+        this.instance = instance;
+        int numOps = instance.numJobs * instance.numTasks;
+        duration = new int[numOps];
+        machine = new int[numOps];
+        sequenced = new boolean[instance.numMachines];
+        machineSequence = new int[instance.numMachines * instance.numJobs];
+        position = new int[numOps];
+        head = new int[numOps];
+        tail = new int[numOps];
+        topological = new int[numOps];
+        inDegree = new int[numOps];
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            for(int t = 0 ; t < instance.numTasks ; t++) {
+                int op = j * instance.numTasks + t;
+                duration[op] = instance.duration(j, t);
+                machine[op] = instance.machine(j, t);
+            }
+        }
+    }
+
+    /** Sequences all machines as in the given sequences (same layout as machineSequence). */
+    void load(int[] sequences) {
+        System.arraycopy(sequences, 0, machineSequence, 0, machineSequence.length);
+        for(int i = 0 ; i < machineSequence.length ; i++)
+            position[machineSequence[i]] = i % instance.numJobs;
+        Arrays.fill(sequenced, true);
+    }
+
+    int jobSuccessor(int op) {
+        return op % instance.numTasks == instance.numTasks - 1 ? -1 : op + 1;
+    }
+
+    int machineSuccessor(int op) {
+        int m = machine[op];
+        return !sequenced[m] || position[op] == instance.numJobs - 1 ? -1 : machineSequence[m * instance.numJobs + position[op] + 1];
+    }
+
+    /** Computes heads, tails and makespan, returns false if the graph has a cycle. */
+    boolean compute() {
+        int numOps = topological.length;
+        for(int op = 0 ; op < numOps ; op++) {
+            inDegree[op] = (op % instance.numTasks == 0 ? 0 : 1)
+                    + (sequenced[machine[op]] && position[op] > 0 ? 1 : 0);
+            head[op] = 0;
+        }
+        // Kahn's algorithm, topological doubles as the queue of operations whose predecessors are all done
+        int queued = 0;
+        for(int op = 0 ; op < numOps ; op++) {
+            if(inDegree[op] == 0)
+                topological[queued++] = op;
+        }
+        makespan = 0;
+        for(int done = 0 ; done < queued ; done++) {
+            int op = topological[done];
+            int end = head[op] + duration[op];
+            makespan = Math.max(makespan, end);
+            int js = jobSuccessor(op), ms = machineSuccessor(op);
+            if(js >= 0) {
+                head[js] = Math.max(head[js], end);
+                if(--inDegree[js] == 0)
+                    topological[queued++] = js;
+            }
+            if(ms >= 0) {
+                head[ms] = Math.max(head[ms], end);
+                if(--inDegree[ms] == 0)
+                    topological[queued++] = ms;
+            }
+        }
+        if(queued < numOps)
+            return false;
+        for(int i = numOps - 1 ; i >= 0 ; i--) {
+            int op = topological[i];
+            int js = jobSuccessor(op), ms = machineSuccessor(op);
+            tail[op] = Math.max(js < 0 ? 0 : duration[js] + tail[js], ms < 0 ? 0 : duration[ms] + tail[ms]);
+        }
+        return true;
+    }
+
+    /** Solves the one machine problem of an unsequenced machine : `sequence` receives its operations
+     * in the best order found, returns the value of that order. */
+    int solveMachine(int m, OneMachineProblem problem, int[] sequence) {
+        int[] ops = new int[instance.numJobs];
+        int n = 0;
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            for(int t = 0 ; t < instance.numTasks ; t++) {
+                int op = j * instance.numTasks + t;
+                if(machine[op] == m) {
+                    ops[n] = op;
+                    problem.r[n] = head[op];
+                    problem.p[n] = duration[op];
+                    problem.q[n] = tail[op];
+                    n++;
+                }
+            }
+        }
+        int value = problem.solve(n, NODE_LIMIT);
+        for(int i = 0 ; i < n ; i++)
+            sequence[i] = ops[problem.sequence[i]];
+        return value;
+    }
+
+    /** Sequences machine m in the given order, or by increasing head if that order creates a cycle.
+     * Heads and tails are up to date afterwards. */
+    void fix(int m, int[] sequence) {
+        setSequence(m, sequence);
+        if(!compute()) {
+            sequenced[m] = false;
+            compute();
+            sequenceByHeads(m);
+            compute();
+        }
+    }
+
+    /** Sequences machine m by increasing head, which follows all the paths of the current graph. */
+    void sequenceByHeads(int m) {
+        long[] keys = new long[instance.numJobs];
+        int n = 0;
+        for(int op = 0 ; op < machine.length ; op++) {
+            if(machine[op] == m)
+                keys[n++] = ((long) head[op] << 32) | op;
+        }
+        int[] sequence = new int[n];
+        Arrays.sort(keys);
+        for(int i = 0 ; i < n ; i++)
+            sequence[i] = (int) keys[i];
+        setSequence(m, sequence);
+    }
+
+    private void setSequence(int m, int[] sequence) {
+        for(int i = 0 ; i < instance.numJobs ; i++) {
+            machineSequence[m * instance.numJobs + i] = sequence[i];
+            position[sequence[i]] = i;
+        }
+        sequenced[m] = true;
+    }
+
+    ResourceOrder toResourceOrder() {
+        ResourceOrder order = new ResourceOrder(instance);
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            for(int i = 0 ; i < instance.numJobs ; i++) {
+                int op = machineSequence[m * instance.numJobs + i];
+                order.tasksByMachine[m][i] = new Task(op / instance.numTasks, op % instance.numTasks);
+            }
+            order.nextFreeSlot[m] = instance.numJobs;
+        }
+        return order;
+    }
+}
@@ -1,44 +1,136 @@
 package jobshop.solvers;
 
 import jobshop.*;
+import jobshop.encodings.BatchJobNumbersEvaluator;
 import jobshop.encodings.JobNumbers;
 
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.function.IntUnaryOperator;
 
 public class RandomSolver implements Solver {
 
+    /** Number of samples drawn before they are evaluated together */
+    private static final int BATCH_SIZE = 16;
+
+    private final long seed;
+    private final int numThreads;
+
+    /** Single threaded sampling with java.util.Random(0). */
+    public RandomSolver() {
+        this.seed = 0;
+        this.numThreads = 0;
+    }
+
+    /** Parallel random sampling on `numThreads` workers.
+     *
+     * Each worker draws from its own SplittableRandom, split in order from a master generator built on `seed`,
+     * so the sequence sampled by each worker only depends on the seed and the number of threads.
+     * At the deadline the best sample is kept, ties being broken in favor of the lowest worker. */
+    public RandomSolver(long seed, int numThreads) {
+        if(numThreads < 1)
+            throw new IllegalArgumentException("At least one thread is needed: " + numThreads);
+        this.seed = seed;
+        this.numThreads = numThreads;
+    }
+
     @Override
     public Result solve(Instance instance, long deadline) {
-        Random generator = new Random(0);
+        return solve(instance, deadline, Long.MAX_VALUE);
+    }
 
-        JobNumbers sol = new JobNumbers(instance);
+    /** Same as solve(instance, deadline) with at most `maxBatches` batches of samples per worker, so that a run
+     * ending before its deadline only depends on the seed and the number of threads. */
+    Result solve(Instance instance, long deadline, long maxBatches) {
+        Sampler best;
+        if(numThreads == 0) {
+            Random generator = new Random(seed);
+            best = new Sampler(instance);
+            best.run(deadline, maxBatches, generator::nextInt);
+        } else {
+            best = solveParallel(instance, deadline, maxBatches);
+        }
+        return new Result(instance, best.bestSolution().toSchedule(), Result.ExitCause.Timeout);
+    }
 
-        for(int j = 0 ; j<instance.numJobs ; j++) {
-            for(int t = 0 ; t<instance.numTasks ; t++) {
-                sol.jobs[sol.nextToSet++] = j;
-            }
+    private Sampler solveParallel(Instance instance, long deadline, long maxBatches) {
+        SplittableRandom master = new SplittableRandom(seed);
+        List<SplittableRandom> generators = new ArrayList<>();
+        for(int w = 0 ; w < numThreads ; w++)
+            generators.add(master.split());
+        List<Sampler> samplers;
+        try (Workers workers = new Workers(numThreads, "random sampling workers")) {
+            samplers = workers.map(numThreads, w -> {
+                Sampler sampler = new Sampler(instance);
+                sampler.run(deadline, maxBatches, generators.get(w)::nextInt);
+                return sampler;
+            });
         }
-        Schedule best = sol.toSchedule();
-        while(deadline - System.currentTimeMillis() > 1) {
-            shuffleArray(sol.jobs, generator);
-            Schedule s = sol.toSchedule();
-            if(s.makespan() < best.makespan()) {
-                best = s;
+
+        Sampler best = null;
+        for(Sampler sampler : samplers) {
+            if(best == null || sampler.bestMakespan < best.bestMakespan)
+                best = sampler;
+        }
+        return best;
+    }
+
+    /** Samples random JobNumbers until the deadline with its own scratch buffers. */
+    private static class Sampler {
+        final JobNumbers sol;
+        // samples are drawn by batches and only their makespan is computed, the best sequence is kept aside
+        // and decoded into a schedule at the end
+        final BatchJobNumbersEvaluator batch;
+        final int[] makespans = new int[BATCH_SIZE];
+        final int[] bestJobs;
+        int bestMakespan;
+
+        Sampler(Instance instance) {
+            sol = new JobNumbers(instance);
+            for(int j = 0 ; j<instance.numJobs ; j++) {
+                for(int t = 0 ; t<instance.numTasks ; t++) {
+                    sol.jobs[sol.nextToSet++] = j;
+                }
             }
+            batch = new BatchJobNumbersEvaluator(instance, BATCH_SIZE);
+            bestJobs = sol.jobs.clone();
+            bestMakespan = sol.makespan();
         }
 
+        /** Samples until the deadline or `maxBatches` batches, `nextInt.applyAsInt(bound)` giving a random number
+         * in [0, bound). Each sample is a shuffle of the previous one, samples are kept in the order they would be
+         * drawn one by one. */
+        void run(long deadline, long maxBatches, IntUnaryOperator nextInt) {
+            for(long b = 0 ; b < maxBatches && deadline - System.currentTimeMillis() > 1 ; b++) {
+                for(int k = 0 ; k < BATCH_SIZE ; k++) {
+                    shuffleArray(sol.jobs, nextInt);
+                    batch.set(k, sol.jobs);
+                }
+                batch.evaluate(BATCH_SIZE, bestMakespan - 1, makespans);
+                for(int k = 0 ; k < BATCH_SIZE ; k++) {
+                    if(makespans[k] < bestMakespan) {
+                        bestMakespan = makespans[k];
+                        batch.copyTo(k, bestJobs);
+                    }
+                }
+            }
+        }
 
-        return new Result(instance, best, Result.ExitCause.Timeout);
+        JobNumbers bestSolution() {
+            System.arraycopy(bestJobs, 0, sol.jobs, 0, bestJobs.length);
+            return sol;
+        }
     }
 
     /** Simple Fisher–Yates array shuffling */
-    private static void shuffleArray(int[] array, Random random)
+    private static void shuffleArray(int[] array, IntUnaryOperator nextInt)
     {
         int index;
         for (int i = array.length - 1; i > 0; i--)
         {
-            index = random.nextInt(i + 1);
+            index = nextInt.applyAsInt(i + 1);
             if (index != i)
             {
                 array[index] ^= array[i];
@@ -48,5 +140,3 @@ public class RandomSolver implements Solver {
         }
     }
 }
-
-
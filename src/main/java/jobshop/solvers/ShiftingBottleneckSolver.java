@@ -0,0 +1,90 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.Result;
+import jobshop.Solver;
+import jobshop.encodings.ResourceOrder;
+
+/** Shifting bottleneck heuristic (Adams, Balas and Zawack).
+ *
+ * Machines are sequenced one at a time. At each step, heads and tails of all tasks are computed in the graph made
+ * of the job precedences and of the sequences of the machines already fixed. For every other machine, the one
+ * machine problem with the heads as release dates and the tails as tails is solved (see OneMachineProblem), and
+ * the machine with the largest value, the bottleneck, is sequenced. Each machine already sequenced is then
+ * re-optimized in turn : its sequence is removed, heads and tails are updated and its one machine problem solved
+ * again, the new sequence being kept when it does not increase the makespan.
+ *
+ * A one machine sequence can create a cycle with the paths through other machines, in which case the tasks are
+ * sequenced by increasing head, which is always consistent with the existing paths.
+ */
+public class ShiftingBottleneckSolver implements Solver {
+
+    /** Number of passes of re-optimization over the sequenced machines after each new bottleneck */
+    private final int reoptimizationPasses;
+
+    public ShiftingBottleneckSolver() {
+        this(2);
+    }
+
+    public ShiftingBottleneckSolver(int reoptimizationPasses) {
+        if(reoptimizationPasses < 0)
+            throw new IllegalArgumentException("Number of re-optimization passes cannot be negative: " + reoptimizationPasses);
+        this.reoptimizationPasses = reoptimizationPasses;
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline) {
+        PartialGraph graph = new PartialGraph(instance);
+        OneMachineProblem problem = new OneMachineProblem(instance.numJobs);
+        int[] sequence = new int[instance.numJobs];
+        int[] bestSequence = new int[instance.numJobs];
+        graph.compute();
+
+        for(int step = 0 ; step < instance.numMachines ; step++) {
+            if(deadline - System.currentTimeMillis() <= 1) {
+                // out of time : the remaining machines are sequenced by increasing head
+                for(int m = 0 ; m < instance.numMachines ; m++) {
+                    if(!graph.sequenced[m]) {
+                        graph.sequenceByHeads(m);
+                        graph.compute();
+                    }
+                }
+                break;
+            }
+
+            // bottleneck : the machine whose one machine problem has the largest value
+            int bottleneck = -1, bottleneckValue = -1;
+            for(int m = 0 ; m < instance.numMachines ; m++) {
+                if(graph.sequenced[m])
+                    continue;
+                int value = graph.solveMachine(m, problem, sequence);
+                if(value > bottleneckValue) {
+                    bottleneck = m;
+                    bottleneckValue = value;
+                    System.arraycopy(sequence, 0, bestSequence, 0, instance.numJobs);
+                }
+            }
+            graph.fix(bottleneck, bestSequence);
+
+            for(int pass = 0 ; pass < reoptimizationPasses && deadline - System.currentTimeMillis() > 1 ; pass++) {
+                for(int m = 0 ; m < instance.numMachines ; m++) {
+                    if(!graph.sequenced[m] || m == bottleneck)
+                        continue;
+                    int makespan = graph.makespan;
+                    System.arraycopy(graph.machineSequence, m * instance.numJobs, bestSequence, 0, instance.numJobs);
+                    graph.sequenced[m] = false;
+                    graph.compute();
+                    graph.solveMachine(m, problem, sequence);
+                    graph.fix(m, sequence);
+                    if(graph.makespan > makespan)
+                        graph.fix(m, bestSequence);
+                }
+            }
+        }
+
+        ResourceOrder order = graph.toResourceOrder();
+        if(deadline - System.currentTimeMillis() <= 1)
+            return new Result(instance, order.toSchedule(), Result.ExitCause.Timeout);
+        return new Result(instance, order.toSchedule(), Result.ExitCause.Blocked);
+    }
+}
@@ -0,0 +1,110 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.Result;
+import jobshop.Solver;
+import jobshop.encodings.PriorityRules;
+import jobshop.encodings.ResourceOrder;
+
+import java.util.SplittableRandom;
+
+/** Simulated annealing over swaps of adjacent critical tasks on a machine (van Laarhoven neighborhood).
+ *
+ * A move is first scored with the O(1) head/tail estimate of HeadsTails.swapEstimate(). Only accepted moves
+ * are applied, and heads and tails are then only updated where they change (see IncrementalHeadsTails), so most
+ * iterations cost a few array reads.
+ *
+ * The temperature decreases geometrically with the fraction of the time budget already used, from an initial
+ * temperature calibrated on the first moves down to FINAL_RATIO times that value at the deadline.
+ */
+public class SimulatedAnnealingSolver implements Solver {
+
+    /** Probability of accepting an average degrading move at the start of the search */
+    private static final double INITIAL_ACCEPTANCE = 0.5;
+    /** Final temperature relatively to the initial one */
+    private static final double FINAL_RATIO = 0.001;
+    /** Number of moves between two updates of the temperature (and checks of the deadline) */
+    private static final int UPDATE_PERIOD = 256;
+
+    private final long seed;
+
+    public SimulatedAnnealingSolver() {
+        this(0);
+    }
+
+    public SimulatedAnnealingSolver(long seed) {
+        this.seed = seed;
+    }
+
+    @Override
+    public Result solve(Instance instance, long deadline) {
+        return solve(new ResourceOrder(new GreedySolver(PriorityRules.EST_LRPT).solve(instance, deadline).schedule), deadline);
+    }
+
+    /** Runs the annealing from the given (complete and feasible) solution, which is left unchanged. */
+    public Result solve(ResourceOrder initial, long deadline) {
+        Instance instance = initial.instance;
+        SplittableRandom random = new SplittableRandom(seed);
+        ResourceOrder order = initial.copy();
+
+        IncrementalHeadsTails graph = new IncrementalHeadsTails(instance);
+        graph.compute(order);
+        int[] best = graph.machineSequence.clone();
+        int bestMakespan = graph.makespan;
+        int lowerBound = HeadsTails.lowerBound(instance);
+
+        // critical arcs : arcs[k] is the index in path of a task directly followed by a task of the same machine
+        int[] path = new int[instance.numJobs * instance.numTasks];
+        int[] arcs = new int[path.length];
+        int numArcs = graph.criticalArcs(path, arcs);
+
+        long start = System.currentTimeMillis();
+        double initialTemperature = initialTemperature(graph, path, arcs, numArcs, random);
+        double temperature = initialTemperature;
+
+        long iteration = 0;
+        while(numArcs > 0 && bestMakespan > lowerBound) {
+            if(iteration++ % UPDATE_PERIOD == 0) {
+                long now = System.currentTimeMillis();
+                if(deadline - now <= 1)
+                    break;
+                double elapsed = (double) (now - start) / (deadline - start);
+                temperature = initialTemperature * Math.pow(FINAL_RATIO, elapsed);
+            }
+
+            int k = arcs[random.nextInt(numArcs)];
+            int u = path[k], v = path[k + 1];
+            int delta = graph.swapEstimate(u, v) - graph.makespan;
+            if(delta <= 0 || random.nextDouble() < Math.exp(-delta / temperature)) {
+                graph.swapAndUpdate(u, v);
+                numArcs = graph.criticalArcs(path, arcs);
+                if(graph.makespan < bestMakespan) {
+                    bestMakespan = graph.makespan;
+                    System.arraycopy(graph.machineSequence, 0, best, 0, best.length);
+                }
+            }
+        }
+
+        System.arraycopy(best, 0, graph.machineSequence, 0, best.length);
+        graph.writeTo(order);
+        // no critical arc : the critical path is a single job and the solution is optimal
+        Result.ExitCause cause = numArcs == 0 || bestMakespan == lowerBound ? Result.ExitCause.ProvedOptimal : Result.ExitCause.Timeout;
+        return new Result(instance, order.toSchedule(), cause);
+    }
+
+    /** Temperature at which the average degradation of a few random moves is accepted with INITIAL_ACCEPTANCE probability. */
+    private static double initialTemperature(HeadsTails graph, int[] path, int[] arcs, int numArcs, SplittableRandom random) {
+        long sum = 0;
+        int count = 0;
+        for(int i = 0 ; i < 100 && numArcs > 0 ; i++) {
+            int k = arcs[random.nextInt(numArcs)];
+            int delta = graph.swapEstimate(path[k], path[k + 1]) - graph.makespan;
+            if(delta > 0) {
+                sum += delta;
+                count++;
+            }
+        }
+        double averageDelta = count == 0 ? 1 : (double) sum / count;
+        return -averageDelta / Math.log(INITIAL_ACCEPTANCE);
+    }
+}
@@ -0,0 +1,337 @@
+package jobshop.solvers;
+
+import jobshop.Instance;
+import jobshop.SolutionStore;
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.Task;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+/** Checkpoint file of a TabooSolver run, allowing to resume the search exactly where it stopped.
+ *
+ * The file is memory-mapped and holds two slots. Each checkpoint is written in the slot that does not hold
+ * the latest one, by a background thread, and its sequence number is written last : if the process is killed
+ * while writing, the other slot still holds a complete checkpoint. Slots are validated with a CRC32.
+ *
+ * File layout : MAGIC (int), slot capacity (int), then two slots made of a sequence number (long),
+ * a payload length (int), the CRC32 of the payload (long) and the payload itself.
+ */
+class TabooCheckpoint implements AutoCloseable {
+
+    private static final int MAGIC = 0x4A535443; // "JSTC"
+    private static final int FILE_HEADER = 8;
+    private static final int SLOT_HEADER = 20;
+
+    /** Search state saved at the end of an iteration. */
+    static final class State {
+        /** Number of iterations done */
+        final int iteration;
+        /** Solution from which the next iteration starts, and its Zobrist hash */
+        final ResourceOrder prime;
+        final long primeHash;
+        /** Best solution found and its makespan */
+        final ResourceOrder star;
+        final int starMakespan;
+        /** sTaboo[i][j] is the last iteration at which swapping back operations i and j is taboo */
+        final int[][] taboo;
+        final VisitedSet visited;
+
+        State(int iteration, ResourceOrder prime, long primeHash, ResourceOrder star, int starMakespan, int[][] taboo, VisitedSet visited) {
+            this.iteration = iteration;
+            this.prime = prime;
+            this.primeHash = primeHash;
+            this.star = star;
+            this.starMakespan = starMakespan;
+            this.taboo = taboo;
+            this.visited = visited;
+        }
+    }
+
+    private final Path file;
+    private FileChannel channel;
+    private MappedByteBuffer mapped;
+    private int slotCapacity;
+    private long sequence;
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "taboo-checkpoint");
+        t.setDaemon(true);
+        return t;
+    });
+    private Future<?> pending = null;
+
+    TabooCheckpoint(Path file) {
+        this.file = file;
+    }
+
+    /** True while a checkpoint is being written, a new one should then be skipped. */
+    boolean isBusy() {
+        return pending != null && !pending.isDone();
+    }
+
+    /** Serializes the state now and writes it in the background. */
+    void saveAsync(State state, int dureeTaboo) {
+        byte[] payload = encode(state, dureeTaboo);
+        pending = writer.submit(() -> {
+            try {
+                write(payload);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /** Writes the state and waits until it is on disk. */
+    void save(State state, int dureeTaboo) {
+        awaitPending();
+        saveAsync(state, dureeTaboo);
+        awaitPending();
+    }
+
+    private void awaitPending() {
+        if(pending == null)
+            return;
+        try {
+            pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Could not write taboo checkpoint " + file, e.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        awaitPending();
+        writer.shutdown();
+        if(channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // the checkpoint is already forced to disk
+            }
+        }
+    }
+
+    /** Latest complete checkpoint of a search on this instance with the same taboo duration, or null if there is no
+     * checkpoint file. A file that cannot be read, holds no complete checkpoint or was saved by another search is
+     * rejected with an exception giving the reason : starting a new search would overwrite it. */
+    State load(Instance instance, int dureeTaboo) {
+        if(!Files.exists(file))
+            return null;
+        ByteBuffer payload;
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer content = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            int slot = latestSlot(content);
+            if(slot < 0)
+                throw new IllegalStateException("Taboo checkpoint " + file + " holds no complete checkpoint");
+            int capacity = content.getInt(4);
+            sequence = content.getLong((int) slotOffset(slot, capacity)) + 1;
+            payload = readSlot(content, slot, capacity);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read taboo checkpoint " + file, e);
+        }
+        try {
+            return decode(payload, instance, dureeTaboo, file);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException | IllegalArgumentException e) {
+            throw new IllegalStateException("Taboo checkpoint " + file + " is corrupt", e);
+        }
+    }
+
+    /** Index of the valid slot with the highest sequence number, -1 if the content holds no valid checkpoint. */
+    private static int latestSlot(ByteBuffer content) {
+        if(content.limit() < FILE_HEADER || content.getInt(0) != MAGIC)
+            return -1;
+        int capacity = content.getInt(4);
+        if(capacity <= 0)
+            return -1;
+        int latest = -1;
+        for(int slot = 0 ; slot < 2 ; slot++) {
+            if(readSlot(content, slot, capacity) != null && (latest < 0
+                    || content.getLong((int) slotOffset(slot, capacity)) > content.getLong((int) slotOffset(latest, capacity))))
+                latest = slot;
+        }
+        return latest;
+    }
+
+    private static long slotOffset(int slot, int capacity) {
+        return FILE_HEADER + (long) slot * (SLOT_HEADER + capacity);
+    }
+
+    /** Payload of a slot if it is complete and valid, null otherwise. */
+    private static ByteBuffer readSlot(ByteBuffer content, int slot, int capacity) {
+        int offset = (int) slotOffset(slot, capacity);
+        if(offset + SLOT_HEADER > content.limit())
+            return null;
+        int length = content.getInt(offset + 8);
+        long crc = content.getLong(offset + 12);
+        if(length <= 0 || length > capacity || offset + SLOT_HEADER + length > content.limit())
+            return null;
+        byte[] payload = new byte[length];
+        ByteBuffer view = content.duplicate();
+        view.position(offset + SLOT_HEADER);
+        view.get(payload);
+        CRC32 check = new CRC32();
+        check.update(payload);
+        return check.getValue() == crc ? ByteBuffer.wrap(payload) : null;
+    }
+
+    /** Writes a payload in the slot that does not hold the latest checkpoint (called by the writer thread). */
+    private void write(byte[] payload) throws IOException {
+        if(mapped == null || payload.length > slotCapacity)
+            remap(payload.length);
+        int slot = (int) (sequence % 2);
+        int offset = (int) slotOffset(slot, slotCapacity);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        ByteBuffer view = mapped.duplicate();
+        view.position(offset + SLOT_HEADER);
+        view.put(payload);
+        mapped.putInt(offset + 8, payload.length);
+        mapped.putLong(offset + 12, crc.getValue());
+        mapped.force();
+        // the sequence number makes the slot the latest one, it is written once the payload is on disk
+        mapped.putLong(offset, sequence++);
+        mapped.force();
+    }
+
+    /** Creates a new file with slots large enough for the payload, keeping the latest checkpoint if there is one. */
+    private void remap(int payloadLength) throws IOException {
+        int capacity = Math.max(2 * payloadLength, slotCapacity);
+        if(channel != null)
+            channel.close();
+        ByteBuffer previous = null;
+        long previousSequence = -1;
+        if(Files.isRegularFile(file)) {
+            try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer content = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+                int slot = latestSlot(content);
+                if(slot >= 0) {
+                    previous = readSlot(content, slot, content.getInt(4));
+                    previousSequence = content.getLong((int) slotOffset(slot, content.getInt(4)));
+                }
+            }
+        }
+
+        // build the larger file next to the current one and replace it atomically
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        long size = slotOffset(2, capacity);
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = out.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, capacity);
+            if(previous != null) {
+                byte[] bytes = new byte[previous.remaining()];
+                previous.get(bytes);
+                CRC32 crc = new CRC32();
+                crc.update(bytes);
+                int offset = (int) slotOffset((int) (previousSequence % 2), capacity);
+                ByteBuffer view = buffer.duplicate();
+                view.position(offset + SLOT_HEADER);
+                view.put(bytes);
+                buffer.putInt(offset + 8, bytes.length);
+                buffer.putLong(offset + 12, crc.getValue());
+                buffer.putLong(offset, previousSequence);
+            }
+            buffer.force();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        slotCapacity = capacity;
+        sequence = Math.max(sequence, previousSequence + 1);
+    }
+
+    private static byte[] encode(State state, int dureeTaboo) {
+        Instance instance = state.prime.instance;
+        byte[] key = SolutionStore.key(instance).getBytes(StandardCharsets.US_ASCII);
+        int numOps = instance.numJobs * instance.numTasks;
+
+        // only entries still taboo after this iteration are saved
+        int numTaboo = 0;
+        for(int i = 0 ; i < numOps ; i++)
+            for(int j = 0 ; j < numOps ; j++)
+                if(state.taboo[i][j] > state.iteration)
+                    numTaboo++;
+
+        ByteBuffer out = ByteBuffer.allocate(4 + key.length + 4 * 4 + 8 + 2 * 4 * instance.numMachines * instance.numJobs
+                + 4 + 12 * numTaboo + state.visited.serializedSize());
+        out.putInt(key.length).put(key);
+        out.putInt(dureeTaboo);
+        out.putInt(state.iteration);
+        out.putInt(state.starMakespan);
+        out.putLong(state.primeHash);
+        putOrder(out, state.prime);
+        putOrder(out, state.star);
+        out.putInt(numTaboo);
+        for(int i = 0 ; i < numOps ; i++) {
+            for(int j = 0 ; j < numOps ; j++) {
+                if(state.taboo[i][j] > state.iteration)
+                    out.putInt(i).putInt(j).putInt(state.taboo[i][j]);
+            }
+        }
+        state.visited.writeTo(out);
+        return out.array();
+    }
+
+    private static State decode(ByteBuffer in, Instance instance, int dureeTaboo, Path file) {
+        byte[] key = new byte[in.getInt()];
+        in.get(key);
+        String savedKey = new String(key, StandardCharsets.US_ASCII);
+        if(!savedKey.equals(SolutionStore.key(instance)))
+            throw new IllegalStateException("Taboo checkpoint " + file + " was saved for instance " + savedKey + ", not " + SolutionStore.key(instance));
+        int savedDuree = in.getInt();
+        if(savedDuree != dureeTaboo)
+            throw new IllegalStateException("Taboo checkpoint " + file + " was saved with a taboo duration of " + savedDuree + ", not " + dureeTaboo);
+        int iteration = in.getInt();
+        int starMakespan = in.getInt();
+        long primeHash = in.getLong();
+        ResourceOrder prime = getOrder(in, instance);
+        ResourceOrder star = getOrder(in, instance);
+        int numOps = instance.numJobs * instance.numTasks;
+        int[][] taboo = new int[numOps][numOps];
+        int numTaboo = in.getInt();
+        for(int k = 0 ; k < numTaboo ; k++) {
+            int i = in.getInt();
+            int j = in.getInt();
+            taboo[i][j] = in.getInt();
+        }
+        VisitedSet visited = VisitedSet.readFrom(in);
+        return new State(iteration, prime, primeHash, star, starMakespan, taboo, visited);
+    }
+
+    private static void putOrder(ByteBuffer out, ResourceOrder order) {
+        for(int m = 0 ; m < order.instance.numMachines ; m++)
+            for(int i = 0 ; i < order.instance.numJobs ; i++)
+                out.putInt(order.tasksByMachine[m][i].job);
+    }
+
+    private static ResourceOrder getOrder(ByteBuffer in, Instance instance) {
+        ResourceOrder order = new ResourceOrder(instance);
+        for(int m = 0 ; m < instance.numMachines ; m++) {
+            for(int i = 0 ; i < instance.numJobs ; i++) {
+                int job = in.getInt();
+                order.tasksByMachine[m][order.nextFreeSlot[m]++] = new Task(job, instance.task_with_machine(job, m));
+            }
+        }
+        return order;
+    }
+}
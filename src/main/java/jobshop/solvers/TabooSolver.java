@@ -2,153 +2,226 @@ package jobshop.solvers;
 
 import jobshop.Instance;
 import jobshop.Result;
-import jobshop.Schedule;
+import jobshop.SolutionStore;
 import jobshop.Solver;
 import jobshop.encodings.PriorityRules;
 import jobshop.encodings.ResourceOrder;
-import jobshop.encodings.Task;
+import jobshop.encodings.ZobristHash;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.file.Path;
 
 public class TabooSolver implements Solver {
 
+    /** Number of visited solution hashes remembered to detect cycles (log2) */
+    private static final int VISITED_LOG2_CAPACITY = 16;
+
     private int maxIter, dureeTaboo;
 
+    /** If not null, the search starts from the stored solution when it is better than the greedy one
+     * and the result is offered to the store. */
+    private final SolutionStore store;
+
+    /** If not null, the state of the search is saved in this file every `checkpointPeriodMs` and at the end */
+    private final Path checkpoint;
+    private final long checkpointPeriodMs;
+    /** If true, the search continues from the checkpoint file when it holds a search on the same instance */
+    private final boolean resume;
+
+    private final Neighborhood neighborhood;
+
     public TabooSolver(int maxIter, int dureeTaboo){
+        this(maxIter, dureeTaboo, null);
+    }
+
+    public TabooSolver(int maxIter, int dureeTaboo, SolutionStore store){
+        this(maxIter, dureeTaboo, store, null, 0, false, Neighborhood.SWAP);
+    }
+
+    private TabooSolver(int maxIter, int dureeTaboo, SolutionStore store, Path checkpoint, long checkpointPeriodMs, boolean resume,
+                        Neighborhood neighborhood){
         super();
         this.maxIter = maxIter;
         this.dureeTaboo = dureeTaboo;
+        this.store = store;
+        this.checkpoint = checkpoint;
+        this.checkpointPeriodMs = checkpointPeriodMs;
+        this.resume = resume;
+        this.neighborhood = neighborhood;
     }
 
-    /** A block represents a subsequence of the critical path such that all tasks in it execute on the same machine.
-     * This class identifies a block in a ResourceOrder representation.
-     *
-     * Consider the solution in ResourceOrder representation
-     * machine 0 : (0,1) (1,2) (2,2)
-     * machine 1 : (0,2) (2,1) (1,1)
-     * machine 2 : ...
-     *
-     * The block with : machine = 1, firstTask= 0 and lastTask = 1
-     * Represent the task sequence : [(0,2) (2,1)]
-     *
-     * */
-    static class Block {
-        /** machine on which the block is identified */
-        final int machine;
-        /** index of the first task of the block */
-        final int firstTask;
-        /** index of the last task of the block */
-        final int lastTask;
-
-        Block(int machine, int firstTask, int lastTask) {
-            this.machine = machine;
-            this.firstTask = firstTask;
-            this.lastTask = lastTask;
-        }
+    /** Same solver, saving its state in `file` every `periodMs` milliseconds and when it stops.
+     * With `resume`, a search saved in `file` for the same instance is continued instead of starting a new one :
+     * it follows exactly the path the uninterrupted search would have followed, and maxIter counts the iterations
+     * done before the checkpoint. A new search only starts if `file` does not exist, a file that cannot be resumed
+     * makes solve() throw. */
+    public TabooSolver withCheckpoint(Path file, long periodMs, boolean resume) {
+        if(periodMs <= 0)
+            throw new IllegalArgumentException("Checkpoint period must be positive: " + periodMs);
+        return new TabooSolver(maxIter, dureeTaboo, store, file, periodMs, resume, neighborhood);
     }
 
-    /**
-     * Represents a swap of two tasks on the same machine in a ResourceOrder encoding.
-     *
-     * Consider the solution in ResourceOrder representation
-     * machine 0 : (0,1) (1,2) (2,2)
-     * machine 1 : (0,2) (2,1) (1,1)
-     * machine 2 : ...
-     *
-     * The swap with : machine = 1, t1= 0 and t2 = 1
-     * Represent inversion of the two tasks : (0,2) and (2,1)
-     * Applying this swap on the above resource order should result in the following one :
-     * machine 0 : (0,1) (1,2) (2,2)
-     * machine 1 : (2,1) (0,2) (1,1)
-     * machine 2 : ...
-     */
-    static class Swap {
-        // machine on which to perform the swap
-        final int machine;
-        // index of one task to be swapped
-        final int t1;
-        // index of the other task to be swapped
-        final int t2;
-
-        Swap(int machine, int t1, int t2) {
-            this.machine = machine;
-            this.t1 = t1;
-            this.t2 = t2;
-        }
-
-        /** Apply this swap on the given resource order, transforming it into a new solution. */
-        /** Upgraded to retun the couple of switched task for taboo */
-        int[] applyOn(ResourceOrder order) {
-            int[] t1t2 = new int[2];
-            t1t2[0] = order.tasksByMachine[machine][t1].task + order.instance.numTasks * order.tasksByMachine[machine][t1].job;
-            t1t2[1] = order.tasksByMachine[machine][t2].task + order.instance.numTasks * order.tasksByMachine[machine][t2].job;
-            Task task1 = order.tasksByMachine[machine][t1];
-            Task task2 = order.tasksByMachine[machine][t2];
-            order.tasksByMachine[machine][t1] = task2;
-            order.tasksByMachine[machine][t2] = task1;
-            return t1t2;
-        }
-
-        @Override
-        public String toString() {
-            return "Swap(m = " + this.machine + "; t1 = " + this.t1 + "; t2 = " + this.t2 + ")";
-        }
+    /** Same solver, exploring the given neighborhood.
+     * With N6, the best non taboo move according to its estimate is applied and all the arcs it reverses
+     * become taboo. */
+    public TabooSolver withNeighborhood(Neighborhood neighborhood) {
+        return new TabooSolver(maxIter, dureeTaboo, store, checkpoint, checkpointPeriodMs, resume, neighborhood);
     }
 
-
     @Override
     public Result solve(Instance instance, long deadline) {
         Solver greedy = new GreedySolver(PriorityRules.EST_LRPT);
+        ResourceOrder initial = new ResourceOrder(greedy.solve(instance, deadline).schedule);
+        if(store == null)
+            return solve(initial, deadline);
+
+        Result result = solve(store.warmStart(initial), deadline);
+        store.offerOrWarn(new ResourceOrder(result.schedule));
+        return result;
+    }
+
+    /** Runs the taboo search from the given (complete and feasible) solution, which is left unchanged.
+     * When resuming from a checkpoint, the search continues from the saved state instead. */
+    public Result solve(ResourceOrder initial, long deadline) {
+        if(checkpoint == null)
+            return search(initial, deadline, null);
+        try (TabooCheckpoint ckpt = new TabooCheckpoint(checkpoint)) {
+            return search(initial, deadline, ckpt);
+        }
+    }
+
+    private Result search(ResourceOrder initial, long deadline, TabooCheckpoint ckpt) {
+        Instance instance = initial.instance;
 
-        //sStar = s*, sCurrent = s, sPrime = s', sSeconde = s''
-        ResourceOrder sStar = new ResourceOrder(greedy.solve(instance, deadline).schedule);//sInit
-        ResourceOrder sCurrent = sStar.copy(), sPrime = sCurrent.copy(), sSeconde;
-        int primeMakespan, secondeMakespan, starMakespan=sStar.toSchedule().makespan();//with their makespan
+        //sStar = s*, the solution s' from which each iteration starts is kept in the graph
+        ResourceOrder sStar = initial.copy();//sInit
+        ResourceOrder sPrime = sStar;
+        int primeMakespan, secondeMakespan, starMakespan;
 
-        //sTaboo Def & Init
+        //sTaboo[a][b] : last iteration at which the arc a -> b must not be reversed
         int nbTaskTotal = instance.numJobs*instance.numTasks;
         int[][] sTaboo= new int[nbTaskTotal][nbTaskTotal];
-        for (int i = 0; i < nbTaskTotal;i++){
-            for (int j = 0; i < nbTaskTotal;i++){
-                sTaboo[i][j]=0;
-            }
-        }
-        //Couples to access sTaboo
-        int[] swapedTaskSeconde;
-        int[] swapedTaskPrime = new int[2];
+
+        //Hashes of the solutions already visited, the taboo list alone does not prevent cycles
+        ZobristHash zobrist = new ZobristHash(instance);
+        VisitedSet visited = new VisitedSet(VISITED_LOG2_CAPACITY);
+        long currentHash, secondeHash, primeHash = zobrist.hash(sPrime);
+        boolean primeVisited;
+
+        //neighbors are evaluated and the chosen one applied on the graph of the current solution, heads and tails
+        //being only updated where they change
+        IncrementalHeadsTails graph = new IncrementalHeadsTails(instance);
+        N6Neighborhood moves = new N6Neighborhood(graph);
+        int[] path = new int[nbTaskTotal];
+        int[] arcs = new int[nbTaskTotal];
+        int chosenMove, chosenU, chosenV;
 
         boolean updated;
         int k =0;
+
+        TabooCheckpoint.State saved = ckpt != null && resume ? ckpt.load(instance, dureeTaboo) : null;
+        if (saved != null) {
+            k = saved.iteration;
+            sPrime = saved.prime;
+            primeHash = saved.primeHash;
+            sStar = saved.star;
+            sTaboo = saved.taboo;
+            visited = saved.visited;
+        }
+        graph.compute(sPrime);
+        starMakespan = saved != null ? saved.starMakespan : graph.makespan;
+        long nextCheckpoint = System.currentTimeMillis() + checkpointPeriodMs;
+
         while (k < this.maxIter &&  (deadline - System.currentTimeMillis() > 1)) {
+            //the state is only consistent between two iterations, it is serialized here and written in the background
+            if (ckpt != null && System.currentTimeMillis() >= nextCheckpoint) {
+                if (!ckpt.isBusy())
+                    ckpt.saveAsync(new TabooCheckpoint.State(k, toOrder(graph), primeHash, sStar, starMakespan, sTaboo, visited), dureeTaboo);
+                nextCheckpoint = System.currentTimeMillis() + checkpointPeriodMs;
+            }
             k++;
             updated = false;
+            primeVisited = true;
             primeMakespan = Integer.MAX_VALUE;
-            sCurrent = sPrime.copy();
-            for (Block block : blocksOfCriticalPath(sCurrent)) {
-                for (Swap swap : neighbors(block)) {
-                    sSeconde = sCurrent.copy();
-                    swapedTaskSeconde = swap.applyOn(sSeconde);
-                    secondeMakespan = sSeconde.toSchedule().makespan();
-                    if (sTaboo[swapedTaskSeconde[0]][swapedTaskSeconde[1]]<k) {
-                        updated = true;
-                        if (secondeMakespan < primeMakespan) {
-                            swapedTaskPrime = swapedTaskSeconde;
-                            primeMakespan = secondeMakespan;
-                            sPrime = sSeconde.copy();
-                        }
+            currentHash = primeHash;
+            visited.add(currentHash);
+            if (neighborhood == Neighborhood.N6) {
+                moves.generate();
+                chosenMove = -1;
+                for (int i = 0; i < moves.size; i++) {
+                    if (moves.isTaboo(sTaboo, k, i)) {
+                        continue;
+                    }
+                    updated = true;
+                    secondeHash = moves.hash(zobrist, currentHash, i);
+                    boolean secondeVisited = visited.contains(secondeHash);
+                    if (secondeVisited && !primeVisited) {
+                        continue;
+                    }
+                    //primeMakespan holds the estimate of the chosen move until it is applied
+                    if (moves.estimate[i] < primeMakespan || primeVisited != secondeVisited) {
+                        chosenMove = i;
+                        primeMakespan = moves.estimate[i];
+                        primeHash = secondeHash;
+                        primeVisited = secondeVisited;
                     }
                 }
-            }
-            if (updated) {
-                sTaboo[swapedTaskPrime[1]][swapedTaskPrime[0]] = k + this.dureeTaboo;
-                if (primeMakespan < starMakespan) {
-                    sStar = sPrime.copy();
-                    starMakespan = primeMakespan;
+                if (updated) {
+                    moves.makeTaboo(sTaboo, k + this.dureeTaboo, chosenMove);
+                    graph.moveAndUpdate(moves.moved[chosenMove], moves.to[chosenMove]);
+                    primeMakespan = graph.makespan;
+                }
+            } else {
+                //swaps of the first two and of the last two tasks of each critical block (Nowicki and Smutnicki),
+                //each one is applied to read its makespan and undone
+                int numArcs = graph.criticalArcs(path, arcs);
+                chosenU = -1;
+                chosenV = -1;
+                for (int a = 0; a < numArcs; a++) {
+                    boolean firstOfBlock = a == 0 || arcs[a - 1] != arcs[a] - 1;
+                    boolean lastOfBlock = a == numArcs - 1 || arcs[a + 1] != arcs[a] + 1;
+                    if (!firstOfBlock && !lastOfBlock) {
+                        continue;
+                    }
+                    int u = path[arcs[a]], v = path[arcs[a] + 1];
+                    if (sTaboo[u][v] >= k) {
+                        continue;
+                    }
+                    updated = true;
+                    //neighbors that were already visited are only kept if all the others are
+                    secondeHash = swapHash(zobrist, graph, currentHash, u, v);
+                    boolean secondeVisited = visited.contains(secondeHash);
+                    if (secondeVisited && !primeVisited) {
+                        continue;
+                    }
+                    //the estimate is a lower bound of the makespan, the swap is not tried if it cannot be chosen
+                    if (primeVisited == secondeVisited && graph.swapEstimate(u, v) >= primeMakespan) {
+                        continue;
+                    }
+                    graph.swapAndUpdate(u, v);
+                    secondeMakespan = graph.makespan;
+                    graph.swapAndUpdate(v, u);
+                    if (secondeMakespan < primeMakespan || primeVisited != secondeVisited) {
+                        chosenU = u;
+                        chosenV = v;
+                        primeMakespan = secondeMakespan;
+                        primeHash = secondeHash;
+                        primeVisited = secondeVisited;
+                    }
+                }
+                if (updated) {
+                    graph.swapAndUpdate(chosenU, chosenV);
+                    sTaboo[chosenV][chosenU] = k + this.dureeTaboo;
                 }
             }
+            if (updated && primeMakespan < starMakespan) {
+                sStar = toOrder(graph);
+                starMakespan = primeMakespan;
+            }
         }
-        if (deadline - System.currentTimeMillis() < 1) {
+        if (ckpt != null) {
+            ckpt.save(new TabooCheckpoint.State(k, toOrder(graph), primeHash, sStar, starMakespan, sTaboo, visited), dureeTaboo);
+        }
+        if (deadline - System.currentTimeMillis() <= 1) {
             return new Result(instance, sStar.toSchedule(), Result.ExitCause.Timeout);
         }else if(k>=maxIter) {
             return new Result(instance, sStar.toSchedule(), Result.ExitCause.Blocked);
@@ -157,45 +230,16 @@ public class TabooSolver implements Solver {
         }
     }
 
-    private List<Block> blocksOfCriticalPath(ResourceOrder order) {
-        List<Block> blocklist = new ArrayList<>();
-        List<Task> tasklist = order.toSchedule().criticalPath();
-        int first_task, orderPointeur, criticalPathPointer ;
-        for (int machine=0; machine <order.toSchedule().pb.numMachines;machine++) {
-            orderPointeur=0;
-            while (orderPointeur < (order.toSchedule().pb.numJobs-1)) {
-                if (tasklist.contains(order.tasksByMachine[machine][orderPointeur])) {
-                    criticalPathPointer= tasklist.indexOf(order.tasksByMachine[machine][orderPointeur]);
-                    if(machine==order.toSchedule().pb.machine(tasklist.get(criticalPathPointer+1))) {
-                        first_task = orderPointeur;
-                        while (criticalPathPointer<(tasklist.size()-1) && machine==order.toSchedule().pb.machine(tasklist.get(criticalPathPointer + 1))) {
-                            criticalPathPointer++;
-                            orderPointeur++;
-                        }
-                        blocklist.add(new Block(machine, first_task, orderPointeur));
-                    }
-                }
-                orderPointeur++;
-            }
-        }
-        return blocklist;
+    /** Hash of the solution of the graph once u and v, adjacent on their machine, are swapped. */
+    private static long swapHash(ZobristHash zobrist, HeadsTails graph, long hash, int u, int v) {
+        int pu = graph.position[u], pv = graph.position[v];
+        return hash ^ zobrist.key(u, pu) ^ zobrist.key(v, pv) ^ zobrist.key(v, pu) ^ zobrist.key(u, pv);
     }
 
-
-
-    /** For a given block, return the possible swaps for the Nowicki and Smutnicki neighborhood */
-    private List<Swap> neighbors(Block block) {
-        List<Swap> swapList = new ArrayList<>();
-        int machine = block.machine;
-        int firstTask = block.firstTask, lastTask = block.lastTask;
-        int secondTask = firstTask +1, beforelastTask = lastTask -1; //On considère que les Taches sont dans l'ordre
-        if (secondTask == lastTask){
-            swapList.add(new Swap(machine,firstTask,lastTask));
-        }else {
-            swapList.add(new Swap(machine, firstTask, secondTask));
-            swapList.add(new Swap(machine, beforelastTask, lastTask));
-        }
-        return swapList;
+    /** New resource order holding the current solution of the graph. */
+    private static ResourceOrder toOrder(HeadsTails graph) {
+        ResourceOrder order = new ResourceOrder(graph.instance);
+        graph.writeTo(order);
+        return order;
     }
-
-}
\ No newline at end of file
+}
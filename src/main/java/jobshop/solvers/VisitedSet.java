@@ -0,0 +1,96 @@
+package jobshop.solvers;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/** Fixed size set of solution hashes (see ZobristHash), used to detect already visited solutions.
+ *
+ * Hashes are stored in an array of 4-slot buckets. When a bucket is full, a new hash replaces one of the old
+ * ones, so memory stays bounded but old solutions may be forgotten : contains() can miss a solution that was
+ * added a long time ago, it never reports one that was not added (up to hash collisions).
+ */
+class VisitedSet {
+
+    private static final int BUCKET_SIZE = 4;
+
+    // 0 marks an empty slot, a hash of 0 is stored as 1
+    private final long[] slots;
+    private final int bucketMask;
+    private int size;
+
+    /** Creates a set holding at most 2^log2Capacity hashes. */
+    VisitedSet(int log2Capacity) {
+        if(log2Capacity < 2 || log2Capacity > 30)
+            throw new IllegalArgumentException("Capacity out of range: 2^" + log2Capacity);
+        slots = new long[1 << log2Capacity];
+        bucketMask = (slots.length / BUCKET_SIZE) - 1;
+    }
+
+    private static long nonZero(long hash) {
+        return hash == 0 ? 1 : hash;
+    }
+
+    private int bucket(long hash) {
+        // high bits of the hash are mixed in as low bits of Zobrist hashes may be correlated
+        return ((int) (hash ^ (hash >>> 32)) & bucketMask) * BUCKET_SIZE;
+    }
+
+    boolean contains(long hash) {
+        hash = nonZero(hash);
+        int b = bucket(hash);
+        for(int i = b ; i < b + BUCKET_SIZE ; i++) {
+            if(slots[i] == hash)
+                return true;
+        }
+        return false;
+    }
+
+    /** Adds a hash to the set, returns false if it was already present. */
+    boolean add(long hash) {
+        hash = nonZero(hash);
+        int b = bucket(hash);
+        for(int i = b ; i < b + BUCKET_SIZE ; i++) {
+            if(slots[i] == hash)
+                return false;
+            if(slots[i] == 0) {
+                slots[i] = hash;
+                size++;
+                return true;
+            }
+        }
+        // full bucket : replace an entry chosen with bits of the hash that are not used by bucket()
+        slots[b + (int) (hash >>> 62)] = hash;
+        return true;
+    }
+
+    /** Number of hashes currently stored. */
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill(slots, 0);
+        size = 0;
+    }
+
+    /** Number of bytes written by writeTo(). */
+    int serializedSize() {
+        return 8 + 8 * slots.length;
+    }
+
+    /** Writes the whole set (including which old entries were replaced) so that readFrom() restores it exactly. */
+    void writeTo(ByteBuffer out) {
+        out.putInt(Integer.numberOfTrailingZeros(slots.length));
+        out.putInt(size);
+        out.asLongBuffer().put(slots);
+        out.position(out.position() + 8 * slots.length);
+    }
+
+    static VisitedSet readFrom(ByteBuffer in) {
+        VisitedSet set = new VisitedSet(in.getInt());
+        set.size = in.getInt();
+        in.asLongBuffer().get(set.slots);
+        in.position(in.position() + 8 * set.slots.length);
+        return set;
+    }
+}
@@ -0,0 +1,61 @@
+package jobshop.solvers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+
+/** Fixed pool of threads running the tasks of a solver, each call waiting for all the tasks it submitted.
+ *
+ * The failure of a task is rethrown in the calling thread, wrapped in a RuntimeException, and an interruption
+ * while waiting restores the interrupt flag before being rethrown the same way. Meant to be used in a
+ * try-with-resources block : close() stops the threads, including the tasks still running after a failure.
+ */
+class Workers implements AutoCloseable {
+
+    private final ExecutorService executor;
+    /** What the tasks are, in the plural, for the error messages */
+    private final String name;
+
+    Workers(int numThreads, String name) {
+        this.executor = Executors.newFixedThreadPool(numThreads);
+        this.name = name;
+    }
+
+    /** Runs task(0) .. task(count-1) in parallel and returns their results, in the same order. */
+    <T> List<T> map(int count, IntFunction<T> task) {
+        List<Future<T>> futures = new ArrayList<>();
+        for(int i = 0 ; i < count ; i++) {
+            int index = i;
+            futures.add(executor.submit(() -> task.apply(index)));
+        }
+        try {
+            List<T> results = new ArrayList<>();
+            for(Future<T> future : futures)
+                results.add(future.get());
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for " + name, e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("One of the " + name + " failed", e.getCause());
+        }
+    }
+
+    /** Runs task(0) .. task(count-1) in parallel. */
+    void forEach(int count, IntConsumer task) {
+        map(count, i -> {
+            task.accept(i);
+            return null;
+        });
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,49 @@
+package jobshop;
+
+import jobshop.encodings.PriorityRules;
+import jobshop.solvers.GreedySolver;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+public class ReschedulerTests {
+
+    @Test
+    public void testArrivalAndBreakdown() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft06"));
+        Schedule initial = new GreedySolver(PriorityRules.EST_LRPT).solve(instance, System.currentTimeMillis() + 1000).schedule;
+
+        Rescheduler rescheduler = new Rescheduler(initial);
+        rescheduler.advanceTo(10);
+        int job = rescheduler.addJob(new int[] {5, 4, 3, 2, 1, 0}, new int[] {3, 4, 5, 6, 7, 8});
+        rescheduler.addUnavailability(2, 12, 30);
+        Schedule repaired = rescheduler.reschedule(1000, System.currentTimeMillis() + 1000);
+
+        assert repaired.isValid();
+        assert repaired.pb.numJobs == instance.numJobs + 1 && job == instance.numJobs;
+        for(int j = 0 ; j < repaired.pb.numJobs ; j++) {
+            for(int t = 0 ; t < repaired.pb.numTasks ; t++) {
+                int start = repaired.startTime(j, t);
+                if(j < instance.numJobs && initial.startTime(j, t) < 10) {
+                    // started operations do not move
+                    assert start == initial.startTime(j, t);
+                } else {
+                    assert start >= 10;
+                    if(repaired.pb.machine(j, t) == 2)
+                        assert start + repaired.pb.duration(j, t) <= 12 || start >= 30;
+                }
+            }
+        }
+
+        // the repaired plan is the starting point of the next event
+        rescheduler.advanceTo(40);
+        rescheduler.addUnavailability(0, 40, 50);
+        Schedule next = rescheduler.reschedule(1000, System.currentTimeMillis() + 1000);
+        assert next.isValid();
+        for(int j = 0 ; j < next.pb.numJobs ; j++)
+            for(int t = 0 ; t < next.pb.numTasks ; t++)
+                if(repaired.startTime(j, t) < 40)
+                    assert next.startTime(j, t) == repaired.startTime(j, t);
+    }
+}
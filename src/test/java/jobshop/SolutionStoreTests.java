@@ -0,0 +1,65 @@
+package jobshop;
+
+import jobshop.encodings.PriorityRules;
+import jobshop.encodings.ResourceOrder;
+import jobshop.solvers.DescentSolver;
+import jobshop.solvers.GreedySolver;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class SolutionStoreTests {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testStoreKeepsBestSolution() throws IOException {
+        SolutionStore store = new SolutionStore(folder.newFolder("solutions").toPath());
+        Instance instance = Instance.fromFile(Paths.get("instances/ft06"));
+        assert store.load(instance) == null;
+
+        ResourceOrder greedy = new ResourceOrder(new GreedySolver(PriorityRules.LRPT).solve(instance, System.currentTimeMillis() + 1000).schedule);
+        boolean stored = store.offer(greedy);
+        assert stored;
+        assert store.load(instance).makespan() == greedy.makespan();
+        // an equal solution does not replace the stored one
+        boolean replaced = store.offer(greedy.copy());
+        assert !replaced;
+
+        // the descent starts from the stored solution and stores its improvement
+        Result result = new DescentSolver(store).solve(instance, System.currentTimeMillis() + 1000);
+        assert result.schedule.makespan() <= greedy.makespan();
+        assert store.load(instance).makespan() == result.schedule.makespan();
+
+        // the key only depends on the instance contents
+        assert SolutionStore.key(instance).equals(SolutionStore.key(Instance.fromFile(Paths.get("instances/ft06"))));
+        assert !SolutionStore.key(instance).equals(SolutionStore.key(Instance.fromFile(Paths.get("instances/la01"))));
+    }
+
+    @Test
+    public void testSolverKeepsSolutionItCannotStore() throws IOException {
+        // the directory of the store is a regular file
+        Path notADirectory = folder.newFile("solutions").toPath();
+        SolutionStore store = new SolutionStore(notADirectory);
+        Instance instance = Instance.fromFile(Paths.get("instances/ft06"));
+        ResourceOrder greedy = new ResourceOrder(new GreedySolver(PriorityRules.LRPT).solve(instance, System.currentTimeMillis() + 1000).schedule);
+        try {
+            store.offer(greedy);
+            assert false : "offer should have failed";
+        } catch (UncheckedIOException e) {
+            // expected
+        }
+        assert !store.offerOrWarn(greedy);
+
+        Result result = new DescentSolver(store).solve(instance, System.currentTimeMillis() + 1000);
+        assert result.schedule.makespan() <= greedy.makespan();
+        assert Files.isRegularFile(notADirectory);
+    }
+}
@@ -0,0 +1,44 @@
+package jobshop;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Scanner;
+
+public class SolveServerTests {
+
+    private static String get(SolveServer server, String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.port() + path).openConnection();
+        InputStream body = connection.getResponseCode() < 400 ? connection.getInputStream() : connection.getErrorStream();
+        try (Scanner scanner = new Scanner(body, "UTF-8")) {
+            return connection.getResponseCode() + "\n" + scanner.useDelimiter("\\A").next();
+        }
+    }
+
+    @Test
+    public void testSolveRequests() throws IOException {
+        SolveServer server = new SolveServer(0, 1, 1, 2);
+        server.start();
+        try {
+            String response = get(server, "/solve?instance=aaa1&solver=greedyESTLRPT&timeout=5000");
+            assert response.startsWith("200\n");
+            assert response.contains("makespan 11\n");
+
+            // second request on the same instance is served from the cache
+            response = get(server, "/solve?instance=aaa1&solver=descent&timeout=5000");
+            assert response.startsWith("200\n");
+            assert get(server, "/status").contains("cached 1\n");
+
+            assert get(server, "/solve?instance=aaa1&solver=unknown").startsWith("400\n");
+            assert get(server, "/solve?instance=nosuchinstance&solver=descent").startsWith("404\n");
+            // malformed names are rejected before being turned into a path
+            assert get(server, "/solve?instance=../build.gradle&solver=descent").startsWith("400\n");
+            assert get(server, "/solve?instance=ft%0006&solver=descent").startsWith("400\n");
+        } finally {
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package jobshop;
+
+import org.junit.Test;
+
+public class TimeBudgetTests {
+
+    @Test
+    public void testSharesFollowWeights() {
+        TimeBudget budget = new TimeBudget(100_000, 10);
+        long start = System.currentTimeMillis();
+        // a run of weight 1 out of 10 gets a tenth of the budget
+        long first = budget.nextDeadline(1) - start;
+        assert first >= 9_000 && first <= 10_000;
+        // the first run ended at once : its time goes to the others, 3 out of the remaining 9
+        long second = budget.nextDeadline(3) - start;
+        assert second >= 32_300 && second <= 34_300;
+        // the last run gets all the time left
+        long last = budget.nextDeadline(6) - start;
+        assert last >= 99_000 && last <= 101_000;
+    }
+
+    @Test
+    public void testTinyShareGetsMinimumSlice() {
+        // a run of 6 tasks in a batch of a million tasks would get 0.06 ms of a 10 s budget
+        TimeBudget budget = new TimeBudget(10_000, 1_000_000);
+        long start = System.currentTimeMillis();
+        long first = budget.nextDeadline(6) - start;
+        assert first >= TimeBudget.MIN_RUN_MS && first <= TimeBudget.MIN_RUN_MS + 1_000;
+        // once the budget is spent, the following runs still get the minimum slice
+        TimeBudget spent = new TimeBudget(0, 2);
+        start = System.currentTimeMillis();
+        assert spent.nextDeadline(1) - start >= TimeBudget.MIN_RUN_MS;
+        assert spent.nextDeadline(1) - start >= TimeBudget.MIN_RUN_MS;
+    }
+}
@@ -1,18 +1,29 @@
 package jobshop.encodings;
 
 import jobshop.Instance;
+import jobshop.InstanceGenerator;
 import jobshop.Result;
 import jobshop.Schedule;
 import jobshop.Solver;
 import jobshop.solvers.BasicSolver;
 import jobshop.solvers.GreedySolver;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 
 public class EncodingTests {
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Test
     public void testJobNumbers() throws IOException {
         Instance instance = Instance.fromFile(Paths.get("instances/aaa1"));
@@ -72,4 +83,201 @@ public class EncodingTests {
         assert result.schedule.makespan() == sched.makespan(); // should have the same makespan
     }
 
+    @Test
+    public void testMakespanWithoutSchedule() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft06"));
+
+        Result result = new GreedySolver(PriorityRules.EST_LRPT).solve(instance, System.currentTimeMillis() + 1000);
+        int makespan = result.schedule.makespan();
+
+        JobNumbers jobs = new JobNumbers(result.schedule);
+        assert jobs.makespan() == makespan;
+        assert jobs.makespan() == jobs.toSchedule().makespan();
+        // decoding is interrupted once a task ends after the cutoff
+        assert jobs.makespan(makespan - 1) > makespan - 1;
+        assert jobs.makespan(makespan) == makespan;
+
+        ResourceOrder order = new ResourceOrder(result.schedule);
+        assert order.makespan() == makespan;
+        assert order.makespan(makespan - 1) > makespan - 1;
+        assert order.makespan(makespan) == makespan;
+
+        Instance aaa1 = Instance.fromFile(Paths.get("instances/aaa1"));
+        // machine 0 waits for job 1 which waits on machine 1 for job 0, which waits for machine 0
+        ResourceOrder cyclic = new ResourceOrder(aaa1);
+        cyclic.tasksByMachine[0][0] = new Task(1, 1);
+        cyclic.tasksByMachine[0][1] = new Task(0, 0);
+        cyclic.tasksByMachine[1][0] = new Task(0, 1);
+        cyclic.tasksByMachine[1][1] = new Task(1, 0);
+        cyclic.tasksByMachine[2][0] = new Task(0, 2);
+        cyclic.tasksByMachine[2][1] = new Task(1, 2);
+        assert cyclic.toSchedule() == null;
+        assert cyclic.makespan() == Integer.MAX_VALUE;
+    }
+
+    @Test
+    public void testJobNumbersEvaluator() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/la01"));
+        JobNumbers base = new JobNumbers(new GreedySolver(PriorityRules.EST_LRPT).solve(instance, System.currentTimeMillis() + 1000).schedule);
+        int length = base.jobs.length;
+
+        JobNumbersEvaluator evaluator = new JobNumbersEvaluator(instance, 7);
+        evaluator.setBase(base);
+        assert evaluator.baseMakespan() == base.makespan();
+
+        Random random = new Random(0);
+        for(int k = 0 ; k < 200 ; k++) {
+            int i = random.nextInt(length);
+            int j = random.nextInt(length);
+
+            JobNumbers swapped = evaluator.toJobNumbers();
+            int tmp = swapped.jobs[i];
+            swapped.jobs[i] = swapped.jobs[j];
+            swapped.jobs[j] = tmp;
+            assert evaluator.evaluateSwap(i, j, Integer.MAX_VALUE) == swapped.makespan();
+
+            JobNumbers inserted = evaluator.toJobNumbers();
+            List<Integer> seq = new ArrayList<>();
+            for(int job : inserted.jobs)
+                seq.add(job);
+            seq.add(j, seq.remove(i));
+            for(int p = 0 ; p < length ; p++)
+                inserted.jobs[p] = seq.get(p);
+            assert evaluator.evaluateInsertion(i, j, Integer.MAX_VALUE) == inserted.makespan();
+
+            // committing a move gives the same base as decoding from scratch
+            if(k % 2 == 0) {
+                evaluator.commitSwap(i, j);
+                assert evaluator.baseMakespan() == swapped.makespan();
+            } else {
+                evaluator.commitInsertion(i, j);
+                assert evaluator.baseMakespan() == inserted.makespan();
+            }
+        }
+    }
+
+    @Test
+    public void testBatchJobNumbersEvaluator() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+        JobNumbers sol = new JobNumbers(new GreedySolver(PriorityRules.EST_LRPT).solve(instance, System.currentTimeMillis() + 1000).schedule);
+        BatchJobNumbersEvaluator batch = new BatchJobNumbersEvaluator(instance, 8);
+        int[] expected = new int[8];
+        int[] makespans = new int[8];
+
+        Random random = new Random(0);
+        for(int k = 0 ; k < 8 ; k++) {
+            for(int i = sol.jobs.length - 1 ; i > 0 ; i--) {
+                int j = random.nextInt(i + 1);
+                int tmp = sol.jobs[i];
+                sol.jobs[i] = sol.jobs[j];
+                sol.jobs[j] = tmp;
+            }
+            batch.set(k, sol.jobs);
+            expected[k] = sol.makespan();
+        }
+
+        batch.evaluate(5, makespans);
+        for(int k = 0 ; k < 5 ; k++)
+            assert makespans[k] == expected[k];
+
+        // same cutoff contract as JobNumbers.makespan(cutoff)
+        int cutoff = expected[3];
+        batch.evaluate(8, cutoff, makespans);
+        for(int k = 0 ; k < 8 ; k++)
+            assert expected[k] <= cutoff ? makespans[k] == expected[k] : makespans[k] > cutoff && makespans[k] <= expected[k];
+
+        int[] copy = new int[sol.jobs.length];
+        batch.copyTo(7, copy);
+        assert Arrays.equals(copy, sol.jobs) && batch.get(7, 0) == sol.jobs[0];
+    }
+
+    @Test
+    public void testConversionsFromSchedule() throws IOException {
+        for(String name : new String[] {"aaa1", "ft06", "ft20", "la01"}) {
+            Instance instance = Instance.fromFile(Paths.get("instances/" + name));
+            Schedule sched = new GreedySolver(PriorityRules.EST_LRPT).solve(instance, System.currentTimeMillis() + 1000).schedule;
+
+            // greedy schedules are semi-active : both encodings must give back the exact same start times
+            Schedule fromJobs = new JobNumbers(sched).toSchedule();
+            Schedule fromOrder = new ResourceOrder(sched).toSchedule();
+            Schedule fromCopy = new ResourceOrder(sched).copy().toSchedule();
+            int[] flat = new int[instance.numJobs * instance.numTasks];
+            int[][] rows = new int[instance.numJobs][instance.numTasks];
+            for(int j = 0 ; j < instance.numJobs ; j++) {
+                for(int t = 0 ; t < instance.numTasks ; t++) {
+                    assert fromJobs.startTime(j, t) == sched.startTime(j, t);
+                    assert fromOrder.startTime(j, t) == sched.startTime(j, t);
+                    assert fromCopy.startTime(j, t) == sched.startTime(j, t);
+                    flat[j * instance.numTasks + t] = sched.startTime(j, t);
+                    rows[j][t] = sched.startTime(j, t);
+                }
+            }
+
+            // row-major start times, wrapped without copy or copied from one array per job
+            Schedule wrapped = Schedule.wrap(instance, flat);
+            Schedule copied = new Schedule(instance, rows);
+            assert wrapped.isValid() && copied.isValid();
+            assert wrapped.makespan() == sched.makespan() && copied.makespan() == sched.makespan();
+        }
+    }
+
+    @Test
+    public void testZobristHash() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+        ResourceOrder order = new ResourceOrder(new GreedySolver(PriorityRules.EST_LRPT).solve(instance, System.currentTimeMillis() + 1000).schedule);
+        ZobristHash zobrist = new ZobristHash(instance);
+        long initial = zobrist.hash(order);
+        long hash = initial;
+
+        Random random = new Random(0);
+        for(int k = 0 ; k < 100 ; k++) {
+            int m = random.nextInt(instance.numMachines);
+            int i = random.nextInt(instance.numJobs);
+            int j = random.nextInt(instance.numJobs);
+            hash = zobrist.swap(hash, order, m, i, j);
+            Task tmp = order.tasksByMachine[m][i];
+            order.tasksByMachine[m][i] = order.tasksByMachine[m][j];
+            order.tasksByMachine[m][j] = tmp;
+            // the incremental hash is the hash of the new order
+            assert hash == zobrist.hash(order);
+        }
+
+        // copies have the same hash, and a single swap changes it
+        assert zobrist.hash(order.copy()) == hash;
+        assert zobrist.swap(hash, order, 0, 0, 1) != hash;
+    }
+
+    @Test
+    public void testOffHeapInstance() throws IOException {
+        Instance heap = Instance.fromFile(Paths.get("instances/ft10"));
+        Path file = folder.newFile("ft10.bin").toPath();
+        heap.writeBinary(file);
+        Instance mapped = Instance.fromFile(file);
+        assert mapped.isOffHeap() && !heap.isOffHeap();
+        assert mapped.numJobs == heap.numJobs && mapped.numTasks == heap.numTasks;
+        for(int j = 0 ; j < heap.numJobs ; j++) {
+            for(int t = 0 ; t < heap.numTasks ; t++) {
+                assert mapped.machine(j, t) == heap.machine(j, t);
+                assert mapped.duration(j, t) == heap.duration(j, t);
+            }
+        }
+
+        // decoders write the schedules of off-heap instances off-heap, with the same start times
+        Schedule onHeap = new GreedySolver(PriorityRules.EST_LRPT).solve(heap, System.currentTimeMillis() + 1000).schedule;
+        Schedule offHeap = new GreedySolver(PriorityRules.EST_LRPT).solve(mapped, System.currentTimeMillis() + 1000).schedule;
+        assert offHeap.isOffHeap() && !onHeap.isOffHeap();
+        assert offHeap.isValid();
+        for(int j = 0 ; j < heap.numJobs ; j++)
+            for(int t = 0 ; t < heap.numTasks ; t++)
+                assert offHeap.startTime(j, t) == onHeap.startTime(j, t);
+
+        // generated instances are read back as any binary instance
+        Path generated = folder.newFile("random.bin").toPath();
+        InstanceGenerator.generate(generated, 200, 20, 1);
+        Instance random = Instance.fromFile(generated);
+        assert random.isOffHeap() && random.numJobs == 200 && random.numMachines == 20;
+        Schedule basic = new BasicSolver().solve(random, System.currentTimeMillis() + 1000).schedule;
+        assert basic.isValid();
+        assert basic.makespan() >= random.duration(0, 0);
+    }
 }
@@ -0,0 +1,664 @@
+package jobshop.solvers;
+
+import jobshop.BestKnownResult;
+import jobshop.Instance;
+import jobshop.Result;
+import jobshop.Schedule;
+import jobshop.encodings.PriorityRules;
+import jobshop.encodings.ResourceOrder;
+import jobshop.encodings.Task;
+import jobshop.encodings.ZobristHash;
+import jobshop.island.Island;
+import jobshop.island.IslandSolver;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class SolverTests {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testHeadsTails() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+        Schedule sched = new GreedySolver(PriorityRules.EST_LRPT).solve(instance, System.currentTimeMillis() + 1000).schedule;
+        ResourceOrder order = new ResourceOrder(sched);
+
+        HeadsTails graph = new HeadsTails(instance);
+        boolean acyclic = graph.compute(order);
+        assert acyclic;
+        assert graph.makespan == sched.makespan();
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            for(int t = 0 ; t < instance.numTasks ; t++) {
+                assert graph.head[graph.op(j, t)] == sched.startTime(j, t);
+            }
+        }
+
+        int[] path = new int[instance.numJobs * instance.numTasks];
+        int length = graph.criticalPath(path);
+        List<Task> criticalPath = new ArrayList<>();
+        for(int i = 0 ; i < length ; i++)
+            criticalPath.add(graph.task(path[i]));
+        assert sched.isCriticalPath(criticalPath);
+
+        // swapping two adjacent critical tasks : the estimate is a lower bound of the real makespan
+        for(int i = 0 ; i < length - 1 ; i++) {
+            int u = path[i], v = path[i + 1];
+            if(graph.machine[u] != graph.machine[v])
+                continue;
+            int estimate = graph.swapEstimate(u, v);
+            graph.swap(u, v);
+            acyclic = graph.compute();
+            assert acyclic;
+            assert estimate <= graph.makespan;
+            graph.swap(v, u);
+            acyclic = graph.compute();
+            assert acyclic;
+        }
+    }
+
+    @Test
+    public void testIncrementalHeadsTails() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+        ResourceOrder order = new ResourceOrder(new GreedySolver(PriorityRules.EST_LRPT).solve(instance, System.currentTimeMillis() + 1000).schedule);
+        IncrementalHeadsTails graph = new IncrementalHeadsTails(instance);
+        HeadsTails full = new HeadsTails(instance);
+        boolean computed = graph.compute(order);
+        assert computed;
+
+        // random swaps of adjacent tasks, critical or not : same heads, tails and makespan as a full computation
+        SplittableRandom random = new SplittableRandom(0);
+        int rejected = 0;
+        for(int i = 0 ; i < 2000 ; i++) {
+            int m = random.nextInt(instance.numMachines);
+            int pos = random.nextInt(instance.numJobs - 1);
+            int u = graph.machineSequence[m * instance.numJobs + pos], v = graph.machineSequence[m * instance.numJobs + pos + 1];
+            int[] before = graph.machineSequence.clone();
+            ResourceOrder swapped = order.copy();
+            graph.writeTo(swapped);
+            Task t = swapped.tasksByMachine[m][pos];
+            swapped.tasksByMachine[m][pos] = swapped.tasksByMachine[m][pos + 1];
+            swapped.tasksByMachine[m][pos + 1] = t;
+
+            boolean acyclic = full.compute(swapped);
+            boolean applied = graph.swapAndUpdate(u, v);
+            assert applied == acyclic;
+            if(!acyclic) {
+                rejected++;
+                assert Arrays.equals(before, graph.machineSequence);
+                continue;
+            }
+            assert graph.makespan == full.makespan;
+            assert Arrays.equals(graph.head, full.head);
+            assert Arrays.equals(graph.tail, full.tail);
+            for(int op = 0 ; op < graph.ord.length ; op++) {
+                int js = graph.jobSuccessor(op), ms = graph.machineSuccessor(op);
+                assert js < 0 || graph.ord[op] < graph.ord[js];
+                assert ms < 0 || graph.ord[op] < graph.ord[ms];
+            }
+        }
+        assert rejected > 0;
+
+        // swapping a critical arc never creates a cycle
+        int[] path = new int[instance.numJobs * instance.numTasks];
+        int length = graph.criticalPath(path);
+        for(int i = 0 ; i < length - 1 ; i++) {
+            if(graph.isCriticalArc(path[i], path[i + 1])) {
+                boolean applied = graph.swapAndUpdate(path[i], path[i + 1]);
+                assert applied;
+                break;
+            }
+        }
+    }
+
+    @Test
+    public void testN6Neighborhood() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+        ResourceOrder order = new ResourceOrder(new GreedySolver(PriorityRules.EST_LRPT).solve(instance, System.currentTimeMillis() + 1000).schedule);
+        ZobristHash zobrist = new ZobristHash(instance);
+        long hash = zobrist.hash(order);
+
+        HeadsTails graph = new HeadsTails(instance);
+        N6Neighborhood moves = new N6Neighborhood(graph);
+        boolean acyclic = graph.compute(order);
+        assert acyclic;
+        int size = moves.generate();
+        assert size > 0;
+        for(int i = 0 ; i < size ; i++) {
+            // generated moves never create a cycle and their hash is updated incrementally
+            ResourceOrder neighbor = order.copy();
+            moves.applyOn(neighbor, i);
+            assert neighbor.makespan() < Integer.MAX_VALUE;
+            assert moves.hash(zobrist, hash, i) == zobrist.hash(neighbor);
+            assert neighbor.tasksByMachine[graph.machine[moves.moved[i]]][moves.to[i]].equals(graph.task(moves.moved[i]));
+        }
+
+        // moves applied and undone on the incremental graph : same heads and tails as a full computation
+        IncrementalHeadsTails incremental = new IncrementalHeadsTails(instance);
+        HeadsTails full = new HeadsTails(instance);
+        incremental.compute(order);
+        for(int i = 0 ; i < size ; i++) {
+            ResourceOrder neighbor = order.copy();
+            moves.applyOn(neighbor, i);
+            full.compute(neighbor);
+            boolean applied = incremental.moveAndUpdate(moves.moved[i], moves.to[i]);
+            assert applied;
+            assert incremental.makespan == full.makespan;
+            assert Arrays.equals(incremental.head, full.head) && Arrays.equals(incremental.tail, full.tail);
+            applied = incremental.moveAndUpdate(moves.moved[i], moves.from[i]);
+            assert applied && incremental.makespan == graph.makespan;
+        }
+
+        Instance ft06 = Instance.fromFile(Paths.get("instances/ft06"));
+        int greedy = new GreedySolver(PriorityRules.EST_LRPT).solve(ft06, System.currentTimeMillis() + 1000).schedule.makespan();
+        Result descent = new DescentSolver().withNeighborhood(Neighborhood.N6).solve(ft06, System.currentTimeMillis() + 1000);
+        Result taboo = new TabooSolver(200, 10).withNeighborhood(Neighborhood.N6).solve(ft06, System.currentTimeMillis() + 1000);
+        assert descent.schedule.isValid() && descent.schedule.makespan() <= greedy;
+        assert taboo.schedule.isValid() && taboo.schedule.makespan() <= descent.schedule.makespan();
+        assert taboo.schedule.makespan() >= 55;
+    }
+
+    @Test
+    public void testOneMachineProblem() {
+        // Carlier's branch and bound against the enumeration of all sequences of 6 jobs
+        OneMachineProblem problem = new OneMachineProblem(6);
+        SplittableRandom random = new SplittableRandom(0);
+        for(int k = 0 ; k < 100 ; k++) {
+            for(int j = 0 ; j < 6 ; j++) {
+                problem.r[j] = random.nextInt(30);
+                problem.p[j] = 1 + random.nextInt(10);
+                problem.q[j] = random.nextInt(30);
+            }
+            int value = problem.solve(6, Integer.MAX_VALUE);
+            assert value == sequenceValue(problem, problem.sequence);
+            assert value == bestValue(problem, new int[6], 0);
+        }
+    }
+
+    private static int sequenceValue(OneMachineProblem problem, int[] sequence) {
+        int t = 0, value = 0;
+        for(int j : sequence) {
+            t = Math.max(t, problem.r[j]) + problem.p[j];
+            value = Math.max(value, t + problem.q[j]);
+        }
+        return value;
+    }
+
+    private static int bestValue(OneMachineProblem problem, int[] sequence, int size) {
+        if(size == sequence.length)
+            return sequenceValue(problem, sequence);
+        int best = Integer.MAX_VALUE;
+        for(int j = 0 ; j < sequence.length ; j++) {
+            boolean used = false;
+            for(int i = 0 ; i < size ; i++)
+                used |= sequence[i] == j;
+            if(!used) {
+                sequence[size] = j;
+                best = Math.min(best, bestValue(problem, sequence, size + 1));
+            }
+        }
+        return best;
+    }
+
+    @Test
+    public void testBeamSearch() throws IOException {
+        for(String name : new String[] {"ft06", "ft10", "la01"}) {
+            Instance instance = Instance.fromFile(Paths.get("instances/" + name));
+            int greedy = new GreedySolver(PriorityRules.EST_LRPT).solve(instance, System.currentTimeMillis() + 1000).schedule.makespan();
+            Result result = new BeamSearchSolver(PriorityRules.EST_LRPT, 2).solve(instance, System.currentTimeMillis() + 1000);
+            assert result.schedule.isValid();
+            assert result.schedule.makespan() < greedy;
+            assert result.schedule.makespan() >= BestKnownResult.of(name);
+        }
+
+        // on small instances the width grows until no child is discarded : the optimum is then proved
+        SplittableRandom random = new SplittableRandom(0);
+        for(int k = 0 ; k < 20 ; k++) {
+            int[][] machines = new int[4][3], durations = new int[4][3];
+            for(int j = 0 ; j < 4 ; j++) {
+                // machines visited in a rotated order, forward or backward
+                int shift = random.nextInt(3), direction = random.nextBoolean() ? 1 : 2;
+                for(int t = 0 ; t < 3 ; t++) {
+                    machines[j][t] = (shift + direction * t) % 3;
+                    durations[j][t] = 1 + random.nextInt(3);
+                }
+            }
+            Instance instance = new Instance(machines, durations);
+            Result exact = new BranchAndBoundSolver(1).solve(instance, System.currentTimeMillis() + 10000);
+            Result result = new BeamSearchSolver(PriorityRules.EST_LRPT, 1).solve(instance, System.currentTimeMillis() + 10000);
+            assert exact.cause == Result.ExitCause.ProvedOptimal;
+            assert result.cause == Result.ExitCause.ProvedOptimal;
+            assert result.schedule.isValid();
+            assert result.schedule.makespan() == exact.schedule.makespan();
+        }
+    }
+
+    @Test
+    public void testShiftingBottleneck() throws IOException {
+        for(String name : new String[] {"ft06", "ft10", "la01"}) {
+            Instance instance = Instance.fromFile(Paths.get("instances/" + name));
+            int greedy = new GreedySolver(PriorityRules.EST_LRPT).solve(instance, System.currentTimeMillis() + 1000).schedule.makespan();
+            Result result = new ShiftingBottleneckSolver().solve(instance, System.currentTimeMillis() + 1000);
+            assert result.schedule.isValid();
+            assert result.schedule.makespan() < greedy;
+            assert result.schedule.makespan() >= BestKnownResult.of(name);
+        }
+    }
+
+    @Test
+    public void testLargeNeighborhood() throws IOException {
+        for(String name : new String[] {"ft06", "ft10", "la16"}) {
+            Instance instance = Instance.fromFile(Paths.get("instances/" + name));
+            int greedy = new GreedySolver(PriorityRules.EST_LRPT).solve(instance, System.currentTimeMillis() + 1000).schedule.makespan();
+            Result result = new LargeNeighborhoodSolver(2, 0).solve(instance, System.currentTimeMillis() + 1000);
+            assert result.schedule.isValid();
+            assert result.schedule.makespan() < greedy;
+            assert result.schedule.makespan() >= BestKnownResult.of(name);
+        }
+
+        // ruins of the greedy solution : each one rebuilds a feasible solution of the makespan it returns
+        Instance ft10 = Instance.fromFile(Paths.get("instances/ft10"));
+        HeadsTails current = new HeadsTails(ft10);
+        current.compute(new ResourceOrder(new GreedySolver(PriorityRules.EST_LRPT).solve(ft10, System.currentTimeMillis() + 1000).schedule));
+        LargeNeighborhoodSolver.Walk walk = new LargeNeighborhoodSolver.Walk(ft10, new SplittableRandom(0));
+        // a deadline in the past only loads the solution
+        walk.run(current.machineSequence, 0);
+        HeadsTails rebuilt = new HeadsTails(ft10);
+        for(int k = 0 ; k < 50 ; k++) {
+            // a time window is re-sequenced as one block per machine, and never increases the makespan
+            int value = walk.ruinWindow();
+            for(int i = 0 ; i < walk.rebuilt.length ; i++) {
+                rebuilt.machineSequence[i] = walk.rebuilt[i];
+                rebuilt.position[walk.rebuilt[i]] = i % ft10.numJobs;
+            }
+            boolean acyclic = rebuilt.compute();
+            assert acyclic && rebuilt.makespan == value && value <= current.makespan;
+            for(int m = 0 ; m < ft10.numMachines ; m++) {
+                int base = m * ft10.numJobs, first = ft10.numJobs, last = -1;
+                for(int i = 0 ; i < ft10.numJobs ; i++) {
+                    if(walk.rebuilt[base + i] != current.machineSequence[base + i]) {
+                        first = Math.min(first, i);
+                        last = i;
+                    }
+                }
+                if(last < 0)
+                    continue;
+                int[] before = Arrays.copyOfRange(current.machineSequence, base + first, base + last + 1);
+                int[] after = Arrays.copyOfRange(walk.rebuilt, base + first, base + last + 1);
+                Arrays.sort(before);
+                Arrays.sort(after);
+                assert Arrays.equals(before, after);
+            }
+
+            // a machine ruin only changes the sequences of the freed machines, 2 of the 10 machines of ft10
+            value = walk.ruinMachines();
+            for(int i = 0 ; i < walk.rebuilt.length ; i++) {
+                rebuilt.machineSequence[i] = walk.rebuilt[i];
+                rebuilt.position[walk.rebuilt[i]] = i % ft10.numJobs;
+            }
+            acyclic = rebuilt.compute();
+            assert acyclic && rebuilt.makespan == value;
+            int changed = 0;
+            for(int m = 0 ; m < ft10.numMachines ; m++) {
+                int base = m * ft10.numJobs;
+                if(!Arrays.equals(Arrays.copyOfRange(walk.rebuilt, base, base + ft10.numJobs),
+                        Arrays.copyOfRange(current.machineSequence, base, base + ft10.numJobs)))
+                    changed++;
+            }
+            assert changed <= 2;
+        }
+    }
+
+    @Test
+    public void testGrasp() throws IOException {
+        Instance ft10 = Instance.fromFile(Paths.get("instances/ft10"));
+        int greedy = new GreedySolver(PriorityRules.EST_LRPT).solve(ft10, System.currentTimeMillis() + 1000).schedule.makespan();
+        Result result = new GraspSolver(PriorityRules.EST_LRPT, 2, 0).solve(ft10, System.currentTimeMillis() + 1000);
+        assert result.schedule.isValid();
+        assert result.schedule.makespan() < greedy;
+        assert result.schedule.makespan() >= BestKnownResult.of("ft10");
+
+        // with alpha = 0 and no ties, the construction is the greedy solver : the durations are distinct powers of
+        // two, so the remaining work of two jobs is never the same
+        int[][] machines = new int[5][5], durations = new int[5][5];
+        for(int j = 0 ; j < 5 ; j++) {
+            for(int t = 0 ; t < 5 ; t++) {
+                machines[j][t] = (j + t) % 5;
+                durations[j][t] = 1 << (5 * j + t);
+            }
+        }
+        Instance distinct = new Instance(machines, durations);
+        GraspSolver.Restarts restarts = new GraspSolver.Restarts(distinct, PriorityRules.EST_LRPT, new SplittableRandom(0));
+        restarts.construct(0);
+        assert restarts.graph.makespan == new GreedySolver(PriorityRules.EST_LRPT).solve(distinct, System.currentTimeMillis() + 1000).schedule.makespan();
+
+        // the picked task always starts and scores within the alpha window of the candidates
+        restarts = new GraspSolver.Restarts(ft10, PriorityRules.EST_LRPT, new SplittableRandom(0));
+        for(double alpha : new double[] {0, 0.3, 1}) {
+            int notGreedy = 0;
+            restarts.reset();
+            for(int step = 0 ; step < ft10.numJobs * ft10.numTasks ; step++) {
+                int minStart = Integer.MAX_VALUE, maxStart = 0;
+                for(int j = 0 ; j < ft10.numJobs ; j++) {
+                    if(restarts.nextTask[j] < ft10.numTasks) {
+                        minStart = Math.min(minStart, restarts.start(j));
+                        maxStart = Math.max(maxStart, restarts.start(j));
+                    }
+                }
+                double startLimit = minStart + alpha * (maxStart - minStart);
+                int bestValue = Integer.MAX_VALUE, worstValue = Integer.MIN_VALUE;
+                for(int j = 0 ; j < ft10.numJobs ; j++) {
+                    if(restarts.nextTask[j] < ft10.numTasks && restarts.start(j) <= startLimit) {
+                        bestValue = Math.min(bestValue, restarts.value(j));
+                        worstValue = Math.max(worstValue, restarts.value(j));
+                    }
+                }
+                int picked = restarts.pick(alpha);
+                assert restarts.nextTask[picked] < ft10.numTasks;
+                assert restarts.start(picked) <= startLimit;
+                assert restarts.value(picked) <= bestValue + alpha * (worstValue - bestValue);
+                if(restarts.start(picked) > minStart || restarts.value(picked) > bestValue)
+                    notGreedy++;
+                restarts.add(picked);
+            }
+            assert (alpha == 0) == (notGreedy == 0);
+        }
+
+        // every rule builds valid solutions
+        for(PriorityRules rule : PriorityRules.values())
+            assert new GraspSolver(rule, 1, 0).solve(ft10, System.currentTimeMillis() + 100).schedule.isValid();
+    }
+
+    @Test
+    public void testAutoSolver() throws IOException {
+        Instance ft06 = Instance.fromFile(Paths.get("instances/ft06"));
+        AutoSolver.Features features = new AutoSolver.Features(ft06);
+        assert features.numOps == 36 && features.jobsPerMachine == 1;
+        assert features.durationVariation > 0 && features.durationVariation < 1;
+        assert features.flowShopness > 0.5 && features.flowShopness < 1;
+        assert AutoSolver.choose(ft06).improvement == AutoSolver.Improvement.BRANCH_AND_BOUND;
+        assert AutoSolver.choose(Instance.fromFile(Paths.get("instances/la01"))).improvement == AutoSolver.Improvement.BRANCH_AND_BOUND;
+        assert AutoSolver.choose(Instance.fromFile(Paths.get("instances/ta21"))).improvement == AutoSolver.Improvement.TABOO;
+
+        for(String name : new String[] {"la01", "ft10"}) {
+            Instance instance = Instance.fromFile(Paths.get("instances/" + name));
+            // the branch and bound stops once the optimum is proved, the taboo search runs until the deadline
+            boolean exact = AutoSolver.choose(instance).improvement == AutoSolver.Improvement.BRANCH_AND_BOUND;
+            Result result = new AutoSolver().solve(instance, System.currentTimeMillis() + (exact ? 20000 : 2000));
+            assert result.schedule.isValid();
+            assert result.schedule.makespan() >= BestKnownResult.of(name);
+            assert !exact || result.cause == Result.ExitCause.ProvedOptimal;
+            // a taboo run is only reported optimal when it meets the lower bound
+            assert exact || (result.cause == Result.ExitCause.ProvedOptimal) == (result.schedule.makespan() == HeadsTails.lowerBound(instance));
+        }
+
+        // taboo searches stopped by their deadline report it, whatever time is left when they leave their loop
+        Instance ft10 = Instance.fromFile(Paths.get("instances/ft10"));
+        for(Neighborhood neighborhood : Neighborhood.values()) {
+            for(int k = 0 ; k < 5 ; k++) {
+                Result taboo = new TabooSolver(Integer.MAX_VALUE, 10).withNeighborhood(neighborhood).solve(ft10, System.currentTimeMillis() + 200);
+                assert taboo.cause == Result.ExitCause.Timeout;
+            }
+        }
+    }
+
+    @Test
+    public void testBranchAndBound() throws IOException {
+        for(String name : new String[] {"ft06", "la01", "la04"}) {
+            Instance instance = Instance.fromFile(Paths.get("instances/" + name));
+            Result result = new BranchAndBoundSolver(2).solve(instance, System.currentTimeMillis() + 20000);
+            assert result.cause == Result.ExitCause.ProvedOptimal;
+            assert result.schedule.isValid();
+            assert result.schedule.makespan() == BestKnownResult.of(name);
+        }
+    }
+
+    @Test
+    public void testRandomParallel() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft10"));
+        long deadline = System.currentTimeMillis() + 60000;
+
+        // with a bounded number of batches, a seed and a number of threads give the same run
+        Schedule single = new RandomSolver(7, 1).solve(instance, deadline, 50).schedule;
+        Schedule again = new RandomSolver(7, 1).solve(instance, deadline, 50).schedule;
+        assert single.isValid();
+        for(int j = 0 ; j < instance.numJobs ; j++) {
+            for(int t = 0 ; t < instance.numTasks ; t++)
+                assert single.startTime(j, t) == again.startTime(j, t);
+        }
+
+        // the first worker draws the same samples as the single threaded run, the merge keeps the best of all workers
+        Schedule parallel = new RandomSolver(7, 2).solve(instance, deadline, 50).schedule;
+        assert parallel.isValid();
+        assert parallel.makespan() <= single.makespan();
+    }
+
+    @Test
+    public void testSimulatedAnnealing() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft06"));
+        int greedy = new GreedySolver(PriorityRules.EST_LRPT).solve(instance, System.currentTimeMillis() + 1000).schedule.makespan();
+
+        Result result = new SimulatedAnnealingSolver().solve(instance, System.currentTimeMillis() + 200);
+        assert result.schedule.isValid();
+        assert result.schedule.makespan() <= greedy;
+        assert result.schedule.makespan() >= 55;
+
+        // the optimum of la01 meets the lower bound : whatever the seed, the annealing stops there, leaving its
+        // initial solution unchanged
+        Instance la01 = Instance.fromFile(Paths.get("instances/la01"));
+        ResourceOrder initial = new ResourceOrder(new GreedySolver(PriorityRules.EST_LRPT).solve(la01, System.currentTimeMillis() + 1000).schedule);
+        ResourceOrder copy = initial.copy();
+        for(long seed = 0 ; seed < 5 ; seed++) {
+            result = new SimulatedAnnealingSolver(seed).solve(initial, System.currentTimeMillis() + 20000);
+            assert result.cause == Result.ExitCause.ProvedOptimal;
+            assert result.schedule.isValid() && result.schedule.makespan() == HeadsTails.lowerBound(la01);
+        }
+        for(int m = 0 ; m < la01.numMachines ; m++)
+            assert Arrays.equals(initial.tasksByMachine[m], copy.tasksByMachine[m]);
+    }
+
+    @Test
+    public void testGenetic() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft06"));
+        int greedy = new GreedySolver(PriorityRules.EST_LRPT).solve(instance, System.currentTimeMillis() + 1000).schedule.makespan();
+
+        Result result = new GeneticSolver(50, 0, 2).solve(instance, System.currentTimeMillis() + 300);
+        assert result.schedule.isValid();
+        assert result.schedule.makespan() <= greedy;
+        assert result.schedule.makespan() >= 55;
+
+        // example of the class documentation : parents [0 1 1 0] and [1 1 0 0] with the subset {0}
+        int[] child = new int[4];
+        GeneticSolver.crossover(new int[] {0, 1, 1, 0, 1, 1, 0, 0}, 0, 4, 4, new boolean[] {true, false}, child);
+        assert Arrays.equals(child, new int[] {0, 1, 1, 0});
+
+        // the jobs of the subset keep their positions in the first parent, the others follow the second parent
+        int length = instance.numJobs * instance.numTasks;
+        SplittableRandom random = new SplittableRandom(0);
+        int[] parents = new int[2 * length];
+        child = new int[length];
+        boolean[] inSubset = new boolean[instance.numJobs];
+        for(int k = 0 ; k < 100 ; k++) {
+            for(int p = 0 ; p < 2 * length ; p++)
+                parents[p] = p % instance.numJobs;
+            for(int p = 2 * length - 1 ; p > 0 ; p--) {
+                // each parent is shuffled on its own half
+                int q = (p / length) * length + random.nextInt(p % length + 1);
+                int tmp = parents[p];
+                parents[p] = parents[q];
+                parents[q] = tmp;
+            }
+            for(int j = 0 ; j < instance.numJobs ; j++)
+                inSubset[j] = random.nextBoolean();
+            GeneticSolver.crossover(parents, 0, length, length, inSubset, child);
+            List<Integer> others = new ArrayList<>(), expected = new ArrayList<>();
+            for(int p = 0 ; p < length ; p++) {
+                assert inSubset[child[p]] == inSubset[parents[p]];
+                if(inSubset[parents[p]])
+                    assert child[p] == parents[p];
+                else
+                    others.add(child[p]);
+                if(!inSubset[parents[length + p]])
+                    expected.add(parents[length + p]);
+            }
+            assert others.equals(expected);
+        }
+
+        // selection keeps the best distinct individuals, duplicates only when there are not enough of them
+        GeneticSolver genetic = new GeneticSolver(3, 0, 1);
+        int[] population = {0, 1, 0, 1, 1, 0};
+        int[] fitness = {5, 5, 9};
+        genetic.select(2, population, fitness, new int[] {0, 1, 1, 1, 0, 0}, new int[] {5, 6, 9});
+        assert Arrays.equals(population, new int[] {0, 1, 1, 1, 1, 0});
+        assert Arrays.equals(fitness, new int[] {5, 6, 9});
+        population = new int[] {0, 1, 0, 1, 0, 1};
+        fitness = new int[] {5, 5, 5};
+        genetic.select(2, population, fitness, population.clone(), fitness.clone());
+        assert Arrays.equals(population, new int[] {0, 1, 0, 1, 0, 1});
+        assert Arrays.equals(fitness, new int[] {5, 5, 5});
+    }
+
+    @Test
+    public void testCooperativeTaboo() throws IOException, InterruptedException {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft06"));
+        ResourceOrder greedy = new ResourceOrder(new GreedySolver(PriorityRules.EST_LRPT).solve(instance, System.currentTimeMillis() + 1000).schedule);
+        ResourceOrder other = new ResourceOrder(new GreedySolver(PriorityRules.SPT).solve(instance, System.currentTimeMillis() + 1000).schedule);
+
+        // relinking returns a feasible solution strictly between the two ends
+        int distance = CooperativeTabooSolver.distance(greedy, other);
+        ResourceOrder relinked = CooperativeTabooSolver.relink(greedy.copy(), other, Long.MAX_VALUE);
+        assert relinked.makespan() < Integer.MAX_VALUE;
+        assert CooperativeTabooSolver.distance(greedy, relinked) > 0;
+        assert CooperativeTabooSolver.distance(relinked, other) > 0;
+        assert CooperativeTabooSolver.distance(greedy, relinked) + CooperativeTabooSolver.distance(relinked, other) >= distance;
+
+        Result result = new CooperativeTabooSolver(2, 4, 50, 0).solve(instance, System.currentTimeMillis() + 500);
+        assert result.schedule.isValid();
+        assert result.schedule.makespan() <= greedy.makespan();
+        assert result.schedule.makespan() >= 55;
+
+        // by default, a run has ROUNDS rounds whatever its time budget, down to rounds of MIN_ROUND_MILLIS
+        assert CooperativeTabooSolver.roundMillis(0, 1000) == 100;
+        assert CooperativeTabooSolver.roundMillis(0, 60000) == 6000;
+        assert CooperativeTabooSolver.roundMillis(0, 50) == 20;
+        assert CooperativeTabooSolver.roundMillis(30, 60000) == 30;
+
+        // each walker completes at least one round and offers its solution to the pool
+        ElitePool pool = new ElitePool(10);
+        int rounds = new CooperativeTabooSolver(2, 10, 100, 0).run(instance, pool, System.currentTimeMillis() + 300);
+        assert rounds >= 2;
+        assert pool.best().makespan <= greedy.makespan();
+
+        // the pool keeps copies of the best distinct solutions, replacing the worst one
+        pool = new ElitePool(2);
+        assert pool.offer(greedy, 60, 1);
+        assert !pool.offer(greedy, 60, 1);
+        assert pool.offer(other, 70, 2);
+        assert !pool.offer(other, 80, 3);
+        assert pool.offer(other, 65, 4);
+        assert pool.best().hash == 1 && pool.best().order != greedy;
+        ElitePool.Elite sampled = pool.sample(new SplittableRandom(0));
+        assert sampled.hash == 1 || sampled.hash == 4;
+
+        // threads offering at the same time : only the best ones remain
+        ElitePool shared = new ElitePool(5);
+        List<Thread> offering = new ArrayList<>();
+        for(int t = 0 ; t < 4 ; t++) {
+            int thread = t;
+            offering.add(new Thread(() -> {
+                for(int i = 0 ; i < 1000 ; i++)
+                    shared.offer(greedy, 4 * i + thread, 4 * i + thread);
+            }));
+        }
+        for(Thread thread : offering)
+            thread.start();
+        for(Thread thread : offering)
+            thread.join();
+        SplittableRandom random = new SplittableRandom(0);
+        for(int i = 0 ; i < 20 ; i++)
+            assert shared.sample(random).makespan < 5;
+    }
+
+    @Test
+    public void testIslandsOnLoopback() throws Exception {
+        Instance instance = Instance.fromFile(Paths.get("instances/ft06"));
+        int port;
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+
+        // two islands running as threads of this JVM, connecting to a coordinator that does not spawn any
+        List<Thread> islands = new ArrayList<>();
+        for(int i = 0 ; i < 2 ; i++) {
+            final int p = port;
+            Thread island = new Thread(() -> {
+                try {
+                    Island.run("127.0.0.1", p);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            island.start();
+            islands.add(island);
+        }
+
+        Result result = new IslandSolver(2, port, false).solve(instance, System.currentTimeMillis() + 1000);
+        assert result.schedule.isValid();
+        assert result.schedule.makespan() <= new GreedySolver(PriorityRules.EST_LRPT).solve(instance, System.currentTimeMillis() + 1000).schedule.makespan();
+        for(Thread island : islands) {
+            island.join(5000);
+            assert !island.isAlive();
+        }
+    }
+
+    @Test
+    public void testTabooResumesFromCheckpoint() throws IOException {
+        Instance instance = Instance.fromFile(Paths.get("instances/la01"));
+        Path file = folder.getRoot().toPath().resolve("taboo.ckpt");
+        long deadline = System.currentTimeMillis() + 10000;
+
+        Result uninterrupted = new TabooSolver(300, 5).solve(instance, deadline);
+
+        // stopped after 120 iterations, then resumed by a solver allowed to reach 300 iterations
+        new TabooSolver(120, 5).withCheckpoint(file, 1, false).solve(instance, deadline);
+        Result resumed = new TabooSolver(300, 5).withCheckpoint(file, 1, true).solve(instance, deadline);
+        assert resumed.schedule.isValid();
+        assert resumed.schedule.makespan() == uninterrupted.schedule.makespan();
+        assert Arrays.deepEquals(new ResourceOrder(resumed.schedule).tasksByMachine, new ResourceOrder(uninterrupted.schedule).tasksByMachine);
+
+        // a checkpoint of another search is rejected, and left as it was
+        byte[] saved = Files.readAllBytes(file);
+        try {
+            new TabooSolver(300, 6).withCheckpoint(file, 1, true).solve(instance, deadline);
+            assert false;
+        } catch (IllegalStateException e) {
+            assert e.getMessage().contains("taboo duration");
+        }
+        assert Arrays.equals(saved, Files.readAllBytes(file));
+
+        // so is a corrupt checkpoint
+        Path corrupt = folder.getRoot().toPath().resolve("corrupt.ckpt");
+        Files.write(corrupt, Arrays.copyOf(saved, 100));
+        try {
+            new TabooSolver(300, 5).withCheckpoint(corrupt, 1, true).solve(instance, deadline);
+            assert false;
+        } catch (IllegalStateException e) {
+            assert e.getMessage().contains("no complete checkpoint");
+        }
+
+        // without a checkpoint file, the search starts from scratch
+        Result fresh = new TabooSolver(300, 5).withCheckpoint(folder.getRoot().toPath().resolve("none.ckpt"), 1, true).solve(instance, deadline);
+        assert fresh.schedule.makespan() == uninterrupted.schedule.makespan();
+    }
+}